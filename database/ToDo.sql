@@ -224,6 +224,19 @@ CREATE TABLE public.todos (
 
 ALTER TABLE public.todos OWNER TO postgres;
 
+--
+-- Name: todo_notifications; Type: TABLE; Schema: public; Owner: postgres
+--
+
+CREATE TABLE public.todo_notifications (
+    todo_id uuid NOT NULL,
+    due_date date NOT NULL,
+    notified_at timestamp with time zone DEFAULT now() NOT NULL
+);
+
+
+ALTER TABLE public.todo_notifications OWNER TO postgres;
+
 --
 -- TOC entry 218 (class 1259 OID 58373)
 -- Name: users; Type: TABLE; Schema: public; Owner: postgres
@@ -365,6 +378,14 @@ ALTER TABLE ONLY public.todos
     ADD CONSTRAINT todos_pkey PRIMARY KEY (id);
 
 
+--
+-- Name: todo_notifications todo_notifications_pkey; Type: CONSTRAINT; Schema: public; Owner: postgres
+--
+
+ALTER TABLE ONLY public.todo_notifications
+    ADD CONSTRAINT todo_notifications_pkey PRIMARY KEY (todo_id, due_date);
+
+
 --
 -- TOC entry 4776 (class 2606 OID 58380)
 -- Name: users users_pkey; Type: CONSTRAINT; Schema: public; Owner: postgres
@@ -383,6 +404,34 @@ ALTER TABLE ONLY public.users
     ADD CONSTRAINT users_username_key UNIQUE (username);
 
 
+--
+-- Name: todos_due_date_id_idx; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX todos_due_date_id_idx ON public.todos USING btree (due_date, id);
+
+
+--
+-- Name: todos_board_position_id_idx; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX todos_board_position_id_idx ON public.todos USING btree (board_id, "position", id);
+
+
+--
+-- Name: todos_board_title_idx; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX todos_board_title_idx ON public.todos USING btree (board_id, title);
+
+
+--
+-- Name: users_username_c_idx; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX users_username_c_idx ON public.users USING btree (username COLLATE "C");
+
+
 --
 -- TOC entry 4790 (class 2606 OID 58469)
 -- Name: activities activities_todo_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: postgres
@@ -437,6 +486,14 @@ ALTER TABLE ONLY public.todos
     ADD CONSTRAINT todos_owner_username_fkey FOREIGN KEY (owner_username) REFERENCES public.users(username) ON DELETE CASCADE;
 
 
+--
+-- Name: todo_notifications todo_notifications_todo_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: postgres
+--
+
+ALTER TABLE ONLY public.todo_notifications
+    ADD CONSTRAINT todo_notifications_todo_id_fkey FOREIGN KEY (todo_id) REFERENCES public.todos(id) ON DELETE CASCADE;
+
+
 -- Completed on 2025-07-19 15:30:57
 
 --
@@ -0,0 +1,277 @@
+package controller;
+
+import dao.UserSummary;
+import models.ToDo;
+import models.User;
+import models.board.Board;
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Facciata asincrona del {@link Controller} per l'interfaccia grafica.
+ *
+ * <p>Ogni operazione che accede al database viene eseguita su un thread virtuale dedicato,
+ * così che l'Event Dispatch Thread di Swing non resti mai bloccato in attesa dell'I/O.
+ * Il modello in memoria (board e ToDo) resta invece confinato nell'Event Dispatch Thread:
+ * il Controller esegue le proprie letture e modifiche del modello sull'Event Dispatch Thread,
+ * attendendone il termine, e sul thread virtuale esegue soltanto le query. I ToDo da salvare
+ * vengono letti dal DAO sul thread virtuale: l'interfaccia non deve modificarli finché
+ * l'operazione non è completata.</p>
+ *
+ * <p>Le operazioni vengono eseguite una alla volta nell'ordine di invio.</p>
+ *
+ * <p>I {@link CompletableFuture} restituiti vengono completati sull'Event Dispatch Thread:
+ * le callback registrate dall'Event Dispatch Thread con {@code thenAccept}, {@code exceptionally}
+ * e simili possono quindi aggiornare direttamente i componenti Swing.</p>
+ */
+public class AsyncController {
+
+    /** Controller sincrono su cui vengono eseguite le operazioni */
+    private final Controller controller;
+
+    /** Esecutore delle operazioni sul database, con un solo thread virtuale */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("controller-worker").factory());
+
+    /**
+     * Crea la facciata asincrona per il controller indicato.
+     *
+     * @param controller il controller su cui eseguire le operazioni
+     */
+    public AsyncController(Controller controller) {
+        this.controller = controller;
+        controller.setModelExecutor(AsyncController::runOnEventDispatchThread);
+    }
+
+    /**
+     * @return il controller sincrono, da usare dall'Event Dispatch Thread per le operazioni in memoria
+     */
+    public Controller getController() {
+        return controller;
+    }
+
+    /**
+     * Effettua il login in background.
+     *
+     * @param username nome utente per il login
+     * @param plainPassword password in chiaro
+     * @return future con l'utente loggato, o null se le credenziali non sono valide
+     * @see Controller#login(String, String)
+     */
+    public CompletableFuture<User> login(String username, String plainPassword) {
+        return submit(() -> controller.login(username, plainPassword));
+    }
+
+    /**
+     * Registra un nuovo utente in background.
+     *
+     * @param username nome utente per il nuovo account
+     * @param plainPassword password in chiaro
+     * @return future con l'utente registrato, o null se la registrazione è fallita
+     * @see Controller#register(String, String)
+     */
+    public CompletableFuture<User> register(String username, String plainPassword) {
+        return submit(() -> {
+            controller.register(username, plainPassword);
+            return controller.user;
+        });
+    }
+
+    /**
+     * Salva in background le modifiche a un board.
+     *
+     * @param board il board modificato
+     * @return future completato al termine del salvataggio
+     * @see Controller#updateBoard(Board)
+     */
+    public CompletableFuture<Void> updateBoard(Board board) {
+        return submit(() -> {
+            controller.updateBoard(board);
+            return null;
+        });
+    }
+
+    /**
+     * Crea un nuovo ToDo in background.
+     *
+     * @return future con l'ID del ToDo creato, o null in caso di errore
+     * @see Controller#addToDo(String, String, String, String, String, String, String, Map, String, String)
+     */
+    public CompletableFuture<String> addToDo(String boardNameStr, String toDoName, String description, String date, String url, String color, String image, Map<String, Boolean> activities, String status, String owner) {
+        return submit(() -> controller.addToDo(boardNameStr, toDoName, description, date, url, color, image, activities, status, owner));
+    }
+
+    /**
+     * Aggiorna un ToDo in background.
+     *
+     * @return future completato al termine dell'aggiornamento
+     * @see Controller#updateToDo(String, String, String, String, String, String, String, String, Map, String, String)
+     */
+    public CompletableFuture<Void> updateToDo(String boardNameStr, String oldToDoTitle, String newToDoTitle, String description, String date, String url, String color, String image, Map<String, Boolean> activities, String status, String owner) {
+        return submit(() -> {
+            controller.updateToDo(boardNameStr, oldToDoTitle, newToDoTitle, description, date, url, color, image, activities, status, owner);
+            return null;
+        });
+    }
+
+    /**
+     * Elimina un ToDo in background.
+     *
+     * @param boardNameStr nome del board contenente il ToDo
+     * @param toDoTitle titolo del ToDo da eliminare
+     * @return future completato al termine dell'eliminazione
+     * @see Controller#deleteToDo(String, String)
+     */
+    public CompletableFuture<Void> deleteToDo(String boardNameStr, String toDoTitle) {
+        return submit(() -> {
+            controller.deleteToDo(boardNameStr, toDoTitle);
+            return null;
+        });
+    }
+
+    /**
+     * Sposta un ToDo in un altro board in background.
+     *
+     * @param toDoTitle titolo del ToDo da spostare
+     * @param currentBoardDisplayName nome del board di origine
+     * @param destinationBoardDisplayName nome del board di destinazione
+     * @return future con true se lo spostamento è riuscito
+     * @see Controller#moveToDo(String, String, String)
+     */
+    public CompletableFuture<Boolean> moveToDo(String toDoTitle, String currentBoardDisplayName, String destinationBoardDisplayName) {
+        return submit(() -> controller.moveToDo(toDoTitle, currentBoardDisplayName, destinationBoardDisplayName));
+    }
+
+    /**
+     * Condivide un ToDo con più utenti in background.
+     *
+     * @param toDo il ToDo da condividere
+     * @param usernamesToShareWith username degli utenti con cui condividere
+     * @param boardNameStr nome del board contenente il ToDo
+     * @return future con true se tutte le condivisioni sono riuscite
+     * @see Controller#shareToDoWithUsers(ToDo, List, String)
+     */
+    public CompletableFuture<Boolean> shareToDoWithUsers(ToDo toDo, List<String> usernamesToShareWith, String boardNameStr) {
+        return submit(() -> controller.shareToDoWithUsers(toDo, usernamesToShareWith, boardNameStr));
+    }
+
+    /**
+     * Rimuove in background la condivisione di un ToDo con alcuni utenti.
+     *
+     * @param toDo il ToDo condiviso
+     * @param usernamesToRemoveSharing username degli utenti da rimuovere
+     * @return future con true se tutte le rimozioni sono riuscite
+     * @see Controller#removeToDoSharing(ToDo, List)
+     */
+    public CompletableFuture<Boolean> removeToDoSharing(ToDo toDo, List<String> usernamesToRemoveSharing) {
+        return submit(() -> controller.removeToDoSharing(toDo, usernamesToRemoveSharing));
+    }
+
+    /**
+     * Recupera in background tutti gli utenti registrati.
+     *
+     * @return future con l'insieme degli utenti
+     * @see Controller#getAllUsers()
+     */
+    public CompletableFuture<Set<User>> getAllUsers() {
+        return submit(controller::getAllUsers);
+    }
+
+    /**
+     * Cerca in background gli utenti per prefisso dell'username.
+     *
+     * @param prefix prefisso dell'username
+     * @param afterUsername ultimo username della pagina precedente, null per la prima pagina
+     * @param limit numero massimo di utenti da restituire
+     * @return future con ID e username degli utenti trovati
+     * @see Controller#searchUsers(String, String, int)
+     */
+    public CompletableFuture<List<UserSummary>> searchUsers(String prefix, String afterUsername, int limit) {
+        return submit(() -> controller.searchUsers(prefix, afterUsername, limit));
+    }
+
+    /**
+     * Carica in background la pagina successiva dei ToDo di un board.
+     *
+     * @param boardNameStr nome del board
+     * @return future con i ToDo aggiunti al board
+     * @see Controller#loadNextToDoPage(String)
+     */
+    public CompletableFuture<List<ToDo>> loadNextToDoPage(String boardNameStr) {
+        return submit(() -> controller.loadNextToDoPage(boardNameStr));
+    }
+
+    /**
+     * Legge in anticipo, in background, la pagina successiva dei ToDo di un board.
+     *
+     * @param boardNameStr nome del board
+     * @return future completato al termine della lettura
+     * @see Controller#prefetchToDoPage(String)
+     */
+    public CompletableFuture<Void> prefetchToDoPage(String boardNameStr) {
+        return submit(() -> {
+            controller.prefetchToDoPage(boardNameStr);
+            return null;
+        });
+    }
+
+    /**
+     * Carica in background i dettagli di un ToDo, prima di mostrarlo in un form.
+     *
+     * @param toDo il ToDo di cui caricare i dettagli
+     * @return future con il ToDo, con i dettagli caricati
+     * @see Controller#loadToDoDetails(ToDo)
+     */
+    public CompletableFuture<ToDo> loadToDoDetails(ToDo toDo) {
+        return submit(() -> controller.loadToDoDetails(toDo));
+    }
+
+    /**
+     * Esegue una sezione del Controller che accede al modello sull'Event Dispatch Thread e ne attende
+     * il termine, propagando al thread chiamante le eccezioni della sezione.
+     */
+    private static void runOnEventDispatchThread(Runnable section) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            section.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(section);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the Event Dispatch Thread", e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Esegue l'operazione sul thread del controller e completa il future sull'Event Dispatch Thread.
+     */
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                T result = task.call();
+                SwingUtilities.invokeLater(() -> future.complete(result));
+            } catch (Throwable e) {
+                SwingUtilities.invokeLater(() -> future.completeExceptionally(e));
+            }
+        });
+        return future;
+    }
+}
@@ -3,18 +3,35 @@ package controller;
 import models.*;
 import models.board.Board;
 import models.board.BoardName;
+import dao.CachingUserDAO;
+import dao.ToDoPlacement;
+import dao.UnitOfWork;
 import dao.UserDAO;
 import dao.UserDAOImpl;
+import dao.UserSummary;
+import dao.WriteBehindQueue;
+import utils.DueDateChecker;
+import utils.DueDateScheduler;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Controller principale dell'applicazione che gestisce le operazioni sui ToDo e sui Board.
  * Funge da intermediario tra il livello di presentazione e il livello di accesso ai dati,
  * fornendo funzionalità per la gestione degli utenti, board e ToDo items.
+ *
+ * <p>Il modello in memoria (utente, board e ToDo) non è thread-safe. Le operazioni che accedono
+ * al database eseguono le proprie letture e modifiche del modello tramite l'esecutore impostato
+ * con {@link #setModelExecutor(Executor)}, così che possano essere chiamate da un altro thread
+ * mentre il modello resta confinato nel thread che lo possiede; solo l'accesso al database
+ * avviene nel thread chiamante.</p>
  */
 public class Controller {
     /** Utente attualmente loggato nel sistema */
@@ -23,13 +40,60 @@ public class Controller {
     /** Data Access Object per le operazioni sulla persistenza degli utenti */
     private UserDAO userDAO;
 
+    /** Cache degli utenti che decora il DAO */
+    private final CachingUserDAO userCache;
+
+    /** Coda di scrittura differita per i riordini dei ToDo */
+    private final WriteBehindQueue positionWrites;
+
+    /** Se true i ToDo dei board vengono caricati una pagina alla volta (proprietà di sistema {@code todo.lazyLoading}) */
+    private static final boolean LAZY_LOADING = Boolean.getBoolean("todo.lazyLoading");
+
+    /** Numero di ToDo per pagina nel caricamento differito (proprietà di sistema {@code todo.pageSize}) */
+    private static final int PAGE_SIZE = Integer.getInteger("todo.pageSize", 100);
+
+    /** Esecutore delle letture e modifiche del modello in memoria; di norma il thread chiamante */
+    private Executor modelExecutor = Runnable::run;
+
+    /** Pianificatore che evidenzia i ToDo dell'utente loggato nel giorno della scadenza, null prima del login */
+    private DueDateScheduler dueDateScheduler;
+
     /**
      * Costruttore del Controller che inizializza il DAO per l'accesso ai dati.
+     * Gli utenti letti per username vengono mantenuti in cache per 5 minuti (30 secondi se inesistenti).
+     * Le posizioni dei ToDo in coda di scrittura vengono salvate alla chiusura dell'applicazione.
      *
      * @throws SQLException se si verifica un errore durante l'inizializzazione del DAO
      */
     public Controller() throws SQLException {
-        this.userDAO = new UserDAOImpl();
+        this.userCache = new CachingUserDAO(new UserDAOImpl(), 1024, Duration.ofMinutes(5), Duration.ofSeconds(30));
+        this.userDAO = userCache;
+        this.positionWrites = new WriteBehindQueue(userDAO, Duration.ofMillis(500));
+        Runtime.getRuntime().addShutdownHook(new Thread(positionWrites::close, "write-behind-shutdown"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("DEBUG: " + userCache.getStats()), "user-cache-stats"));
+    }
+
+    /**
+     * Imposta l'esecutore su cui vengono lette e modificate le strutture del modello in memoria.
+     * L'esecutore deve eseguire ogni sezione prima di restituire il controllo, propagandone le eccezioni.
+     *
+     * @param modelExecutor esecutore sincrono delle sezioni che accedono al modello
+     */
+    public void setModelExecutor(Executor modelExecutor) {
+        this.modelExecutor = Objects.requireNonNull(modelExecutor);
+    }
+
+    /**
+     * Esegue una sezione che legge o modifica il modello in memoria sul suo esecutore.
+     */
+    private <T> T onModel(Supplier<T> section) {
+        AtomicReference<T> result = new AtomicReference<>();
+        modelExecutor.execute(() -> result.set(section.get()));
+        return result.get();
+    }
+
+    private void onModel(Runnable section) {
+        modelExecutor.execute(section);
     }
 
     /**
@@ -44,7 +108,6 @@ public class Controller {
         try {
             boolean success = userDAO.saveUser(newUser);
             if (success) {
-                this.user = newUser;
                 // Crea i board di default per il nuovo utente
                 newUser.fillBoard(newUser.getUsername());
 
@@ -53,15 +116,17 @@ public class Controller {
                     userDAO.saveBoard(board, newUser.getId());
                 }
 
+                // L'utente diventa visibile al resto dell'applicazione solo quando è completo
+                onModel(() -> startSession(newUser));
                 System.out.println("User '" + username + "' registered successfully and default boards created.");
             } else {
                 System.err.println("Registration failed: User '" + username + "' might already exist.");
-                this.user = null;
+                onModel(() -> this.user = null);
             }
         } catch (SQLException e) {
             System.err.println("Database error during registration: " + e.getMessage());
             e.printStackTrace();
-            this.user = null;
+            onModel(() -> this.user = null);
         }
     }
 
@@ -79,26 +144,75 @@ public class Controller {
         if (optionalUser.isPresent()) {
             User foundUser = optionalUser.get();
             if (foundUser.checkPassword(plainPassword)) {
-                this.user = foundUser;
-                // Carica tutti i board e ToDo dell'utente
-                userDAO.loadUserBoardsAndToDos(this.user);
+                // Carica i board e i ToDo dell'utente, tutti subito o una pagina alla volta
+                if (LAZY_LOADING) {
+                    userDAO.loadUserBoardsLazily(foundUser, PAGE_SIZE);
+                } else {
+                    userDAO.loadUserBoardsAndToDos(foundUser);
+                }
+                // L'utente diventa visibile al resto dell'applicazione solo quando è caricato
+                onModel(() -> startSession(foundUser));
                 System.out.println("User '" + username + "' logged in successfully.");
                 return foundUser;
             } else {
                 System.out.println("Login failed: Incorrect password for user '" + username + "'.");
-                this.user = null;
+                onModel(() -> this.user = null);
                 return null;
             }
         } else {
             System.out.println("Login failed: User '" + username + "' not found.");
-            this.user = null;
+            onModel(() -> this.user = null);
             return null;
         }
     }
 
+    /**
+     * Imposta l'utente loggato e avvia il pianificatore delle scadenze sui suoi ToDo già caricati,
+     * sostituendo quello della sessione precedente. Va eseguito sull'esecutore del modello.
+     */
+    private void startSession(User loggedUser) {
+        if (dueDateScheduler != null) {
+            dueDateScheduler.shutdown();
+        }
+        this.user = loggedUser;
+        this.dueDateScheduler = DueDateChecker.scheduleMidnightCheck(loggedUser.getBoardList());
+    }
+
+    /**
+     * Segue la scadenza di un ToDo mostrato in un board dell'utente. Va eseguito sull'esecutore del modello.
+     */
+    private void trackDueDate(ToDo toDo) {
+        if (dueDateScheduler != null) {
+            dueDateScheduler.track(toDo);
+        }
+    }
+
+    /**
+     * Smette di seguire la scadenza di un ToDo rimosso dai board dell'utente. Va eseguito sull'esecutore del modello.
+     */
+    private void untrackDueDate(ToDo toDo) {
+        if (dueDateScheduler != null) {
+            dueDateScheduler.untrack(toDo);
+        }
+    }
+
+    /**
+     * Aggiunge a un board la pagina letta per una richiesta e ne segue le scadenze.
+     * Va eseguito sull'esecutore del modello.
+     */
+    private List<ToDo> addPage(Board board, Board.PageRequest request, List<ToDo> page) {
+        List<ToDo> added = board.addNextPage(request, page);
+        for (ToDo toDo : added) {
+            trackDueDate(toDo);
+        }
+        return added;
+    }
+
     /**
      * Aggiorna un board esistente nel database.
      * Verifica che l'utente corrente sia il proprietario del board prima dell'aggiornamento.
+     * Viene salvata una copia del board letta dal modello, così che il salvataggio non legga
+     * il board mentre può essere modificato.
      *
      * @param board il board da aggiornare
      */
@@ -117,7 +231,8 @@ public class Controller {
                 System.err.println("Permission Denied: User '" + this.user.getUsername() + "' is not the owner of board '" + board.getName().getDisplayName() + "'. Update aborted.");
                 return;
             }
-            userDAO.updateBoard(board);
+            Board snapshot = onModel(() -> new Board(board.getId(), board.getName(), board.getOwner(), board.getColor()));
+            userDAO.updateBoard(snapshot);
             System.out.println("Board '" + board.getName().getDisplayName() + "' updated successfully in the database.");
         } catch (SQLException e) {
             System.err.println("Database error updating board '" + board.getName().getDisplayName() + "': " + e.getMessage());
@@ -168,44 +283,67 @@ public class Controller {
             return null;
         }
 
-        // Creazione del ToDo e impostazione delle proprietà
-        ToDo toDo = board.addTodo(toDoName, owner);
-        if (toDo == null) {
+        // Il nuovo ToDo va in coda e il titolo deve essere unico, anche tra i ToDo non ancora caricati
+        int tailPosition;
+        try {
+            tailPosition = tailPositionForAppend(board, boardEnumName, toDoName, owner);
+        } catch (SQLException e) {
+            System.err.println("Database error checking board '" + boardNameStr + "': " + e.getMessage());
+            return null;
+        }
+        if (tailPosition < 0) {
+            System.err.println("Error: A ToDo with title '" + toDoName + "' by owner '" + owner + "' already exists on board " + boardNameStr);
             return null;
         }
 
-        toDo.setDescription(description);
-        toDo.setUrl(url);
-        toDo.setColor(color);
-        toDo.setImage(image);
-        toDo.setActivityList(activities);
-        toDo.setStatus(status);
-
-        // Parsing e impostazione della data di scadenza
+        // Parsing della data di scadenza
+        LocalDate localDate;
         try {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            LocalDate localDate = LocalDate.parse(date, formatter);
-            toDo.setDueDate(localDate);
+            localDate = LocalDate.parse(date, formatter);
         } catch (java.time.format.DateTimeParseException e) {
             System.err.println("Error parsing due date: " + date + " - " + e.getMessage());
             return null;
         }
 
-        // Salvataggio nel database
-        try {
+        // Creazione del ToDo e impostazione delle proprietà
+        ToDo toDo = onModel(() -> {
+            Map<ToDo, Integer> oldPositions = positionsOf(board);
+            ToDo created = board.addTodo(toDoName, owner, tailPosition);
+            if (created != null) {
+                // Il nuovo ToDo viene salvato con la sua posizione, gli altri solo se ridistribuiti
+                enqueueChangedPositions(board, oldPositions);
+                created.setDescription(description);
+                created.setUrl(url);
+                created.setColor(color);
+                created.setImage(image);
+                created.setActivityList(activities);
+                created.setStatus(status);
+                created.setDueDate(localDate);
+            }
+            return created;
+        });
+        if (toDo == null) {
+            return null;
+        }
+
+        // Salvataggio nel database in un'unica transazione
+        try (UnitOfWork unitOfWork = userDAO.beginUnitOfWork()) {
             int boardId = userDAO.getBoardId(boardEnumName, user.getUsername());
             if (boardId != -1) {
                 userDAO.saveToDo(toDo, boardId);
+                unitOfWork.commit();
+                onModel(() -> trackDueDate(toDo));
                 System.out.println("ToDo '" + toDoName + "' added successfully to board '" + boardNameStr + "'.");
             } else {
                 System.err.println("Board not found in database for saving ToDo.");
-                board.removeToDo(toDo);
+                onModel(() -> board.removeToDo(toDo));
                 return null;
             }
         } catch (SQLException e) {
             System.err.println("Database error saving ToDo: " + e.getMessage());
             e.printStackTrace();
-            board.removeToDo(toDo);
+            onModel(() -> board.removeToDo(toDo));
             return null;
         }
 
@@ -249,62 +387,89 @@ public class Controller {
             return;
         }
 
-        // Ricerca del ToDo da aggiornare
-        Optional<ToDo> optionalToDo = board.getTodoList().stream()
-                .filter(t -> t.getTitle().equals(oldToDoTitle))
-                .findFirst();
+        // Parsing della nuova data
+        LocalDate localDate;
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            localDate = LocalDate.parse(date, formatter);
+        } catch (java.time.format.DateTimeParseException e) {
+            System.err.println("Error parsing due date: " + date + " - " + e.getMessage());
+            return;
+        }
 
-        if (optionalToDo.isPresent()) {
-            ToDo toDoToUpdate = optionalToDo.get();
+        // I dettagli vanno caricati qui: sull'esecutore del modello non si accede al database
+        ToDo target = onModel(() -> board.findByTitle(oldToDoTitle).orElse(null));
+        if (target != null) {
+            try {
+                loadToDoDetails(target);
+            } catch (SQLException e) {
+                System.err.println("Database error loading the details of ToDo '" + oldToDoTitle + "': " + e.getMessage());
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        // Ricerca e aggiornamento in memoria del ToDo, da salvare solo se modificato
+        ToDo toDoToUpdate = onModel(() -> {
+            Optional<ToDo> optionalToDo = board.findByTitle(oldToDoTitle);
+            if (optionalToDo.isEmpty()) {
+                System.err.println("ToDo with title '" + oldToDoTitle + "' not found on board " + boardNameStr);
+                return null;
+            }
+            ToDo found = optionalToDo.get();
+            if (!found.isDetailsLoaded()) {
+                // The ToDo was replaced after its details were loaded: never load them here
+                System.err.println("Error: The details of ToDo '" + oldToDoTitle + "' are not loaded. Update aborted.");
+                return null;
+            }
 
             // Verifica dei permessi di proprietà
-            if (!isCurrentUserToDoCreator(toDoToUpdate)) {
+            if (!isCurrentUserToDoCreator(found)) {
                 System.err.println("Permission Denied: User '" + this.user.getUsername() + "' is not the owner of ToDo '" + oldToDoTitle + "'. Update aborted.");
-                return;
+                return null;
             }
 
             // Verifica che il nuovo titolo non sia duplicato
             if (!oldToDoTitle.equals(newToDoTitle) &&
-                    board.getTodoList().stream().anyMatch(t -> t.getTitle().equals(newToDoTitle) && t.getOwner().equals(toDoToUpdate.getOwner()))) {
+                    board.findByTitleAndOwner(newToDoTitle, found.getOwner()).isPresent()) {
                 System.err.println("Error: A ToDo with title '" + newToDoTitle + "' and same owner already exists on board '" + boardNameStr + "'. Update aborted.");
-                return;
+                return null;
             }
 
             // Aggiornamento delle proprietà del ToDo
-            toDoToUpdate.setTitle(newToDoTitle);
-            toDoToUpdate.setDescription(description);
-            toDoToUpdate.setUrl(url);
-            toDoToUpdate.setColor(color);
-            toDoToUpdate.setImage(image);
-            toDoToUpdate.setActivityList(activities);
-            toDoToUpdate.setStatus(status);
-
-            // Parsing e aggiornamento della data
-            try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                LocalDate localDate = LocalDate.parse(date, formatter);
-                toDoToUpdate.setDueDate(localDate);
-            } catch (java.time.format.DateTimeParseException e) {
-                System.err.println("Error parsing due date: " + date + " - " + e.getMessage());
-                return;
+            found.setTitle(newToDoTitle);
+            found.setDescription(description);
+            found.setUrl(url);
+            found.setColor(color);
+            found.setImage(image);
+            found.setActivityList(activities);
+            found.setStatus(status);
+            found.setDueDate(localDate);
+
+            if (!found.hasUnsavedChanges()) {
+                System.out.println("ToDo '" + oldToDoTitle + "' has no changes to save.");
+                return null;
             }
+            return found;
+        });
+        if (toDoToUpdate == null) {
+            return;
+        }
 
-            // Salvataggio delle modifiche nel database
-            try {
-                int boardId = userDAO.getBoardId(boardEnumName, user.getUsername());
-                if (boardId != -1) {
-                    userDAO.updateToDo(toDoToUpdate, boardId);
-                    System.out.println("ToDo '" + oldToDoTitle + "' updated successfully to '" + newToDoTitle + "' on board '" + boardNameStr + "'.");
-                } else {
-                    System.err.println("Board not found in database for updating ToDo.");
-                }
-            } catch (SQLException e) {
-                System.err.println("Database error updating ToDo: " + e.getMessage());
-                e.printStackTrace();
+        // Salvataggio delle modifiche nel database in un'unica transazione
+        try (UnitOfWork unitOfWork = userDAO.beginUnitOfWork()) {
+            int boardId = userDAO.getBoardId(boardEnumName, user.getUsername());
+            if (boardId != -1) {
+                userDAO.updateToDo(toDoToUpdate, boardId);
+                unitOfWork.commit();
+                onModel(() -> trackDueDate(toDoToUpdate));
+                System.out.println("ToDo '" + oldToDoTitle + "' updated successfully to '" + newToDoTitle + "' on board '" + boardNameStr + "'.");
+            } else {
+                System.err.println("Board not found in database for updating ToDo.");
             }
-
-        } else {
-            System.err.println("ToDo with title '" + oldToDoTitle + "' not found on board " + boardNameStr);
+        } catch (SQLException e) {
+            System.err.println("Database error updating ToDo: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 
@@ -335,12 +500,201 @@ public class Controller {
             return null;
         }
 
-        return board.getTodoList().stream()
-                .filter(toDo -> toDo.getTitle().equals(title))
-                .findFirst()
+        return board.findByTitle(title)
                 .orElse(null);
     }
 
+    /**
+     * Sposta un ToDo in una nuova posizione del proprio board.
+     * L'ordine in memoria cambia subito, mentre le nuove posizioni dei ToDo creati dall'utente
+     * vengono salvate in differita: spostamenti ravvicinati producono una sola scrittura.
+     * Di norma cambia posizione il solo ToDo spostato (vedi {@link Board#moveTodo(ToDo, int)}).
+     *
+     * @param boardNameStr nome del board contenente il ToDo
+     * @param toDo il ToDo da spostare
+     * @param newIndex nuovo indice (0-based) del ToDo nel board
+     * @return true se il ToDo è stato spostato
+     */
+    public boolean reorderToDo(String boardNameStr, ToDo toDo, int newIndex) {
+        if (this.user == null) {
+            System.err.println("Error: No user is logged in to reorder a ToDo.");
+            return false;
+        }
+
+        BoardName boardEnumName;
+        try {
+            boardEnumName = BoardName.fromDisplayName(boardNameStr);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: Invalid board name '" + boardNameStr + "'. " + e.getMessage());
+            return false;
+        }
+
+        Board board = user.getBoard(boardEnumName);
+        if (board == null) {
+            System.err.println("Board " + boardNameStr + " not found for user '" + user.getUsername() + "'.");
+            return false;
+        }
+
+        Map<ToDo, Integer> oldPositions = positionsOf(board);
+        if (!board.moveTodo(toDo, newIndex)) {
+            return false;
+        }
+
+        // Di norma cambia la posizione del solo ToDo spostato, di tutti solo dopo una ridistribuzione
+        enqueueChangedPositions(board, oldPositions);
+        return true;
+    }
+
+    /**
+     * @return la posizione attuale di ogni ToDo del board, da confrontare dopo una modifica
+     *         con {@link #enqueueChangedPositions(Board, Map)}
+     */
+    private static Map<ToDo, Integer> positionsOf(Board board) {
+        List<ToDo> todos = board.getTodoList();
+        Map<ToDo, Integer> positions = new HashMap<>(todos.size() * 2);
+        for (ToDo todo : todos) {
+            positions.put(todo, todo.getPosition());
+        }
+        return positions;
+    }
+
+    /**
+     * Accoda il salvataggio della posizione dei ToDo del board che avevano una posizione diversa
+     * prima della modifica, ad esempio dopo una ridistribuzione. I ToDo assenti prima della modifica
+     * vengono salvati dal chiamante.
+     */
+    private void enqueueChangedPositions(Board board, Map<ToDo, Integer> oldPositions) {
+        for (ToDo todo : board.getTodoList()) {
+            Integer oldPosition = oldPositions.get(todo);
+            // La posizione dei ToDo condivisi appartiene al board del proprietario
+            if (oldPosition != null && oldPosition != todo.getPosition() && isCurrentUserToDoCreator(todo)) {
+                positionWrites.enqueuePosition(todo);
+            }
+        }
+    }
+
+    /**
+     * Carica la pagina successiva dei ToDo di un board caricato in modo differito.
+     *
+     * @param boardNameStr nome del board
+     * @return i ToDo aggiunti al board, lista vuota se il board è già caricato completamente
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public List<ToDo> loadNextToDoPage(String boardNameStr) throws SQLException {
+        Board board = findBoard(boardNameStr);
+        if (board == null) {
+            return List.of();
+        }
+        Board.PageRequest request = onModel(board::nextPageRequest);
+        List<ToDo> page = request != null ? request.fetch() : null;
+        return onModel(() -> addPage(board, request, page));
+    }
+
+    /**
+     * Legge in anticipo la pagina successiva dei ToDo di un board, senza mostrarla,
+     * così che la prossima {@link #loadNextToDoPage(String)} sia immediata.
+     *
+     * @param boardNameStr nome del board
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public void prefetchToDoPage(String boardNameStr) throws SQLException {
+        Board board = findBoard(boardNameStr);
+        if (board == null) {
+            return;
+        }
+        Board.PageRequest request = onModel(board::nextPageRequest);
+        if (request != null) {
+            List<ToDo> page = request.fetch();
+            onModel(() -> board.storePrefetchedPage(request, page));
+        }
+    }
+
+    /**
+     * Verifica, per un board caricato solo in parte, che i ToDo non ancora caricati non contengano già
+     * il titolo e il proprietario indicati, e restituisce la posizione dell'ultimo ToDo del board nel database.
+     * Per un board caricato completamente non esegue query: la verifica sui ToDo in memoria spetta al board.
+     *
+     * @return la posizione dell'ultimo ToDo del board nel database, 0 se il board è caricato completamente,
+     *         oppure -1 se nel database esiste già un ToDo con lo stesso titolo e proprietario
+     * @throws SQLException se si verifica un errore durante la verifica
+     */
+    private int tailPositionForAppend(Board board, BoardName boardName, String title, String owner) throws SQLException {
+        if (!onModel(board::hasMorePages)) {
+            return 0;
+        }
+        int boardId = userDAO.getBoardId(boardName, user.getUsername());
+        if (boardId == -1) {
+            throw new SQLException("Board '" + boardName.getDisplayName() + "' not found in database.");
+        }
+        if (userDAO.existsToDo(boardId, title, owner)) {
+            return -1;
+        }
+        return userDAO.getMaxToDoPosition(boardId);
+    }
+
+    /**
+     * Carica i dettagli di un ToDo (descrizione, attività e condivisioni), se non sono già in memoria.
+     * I dettagli vengono letti in una copia del ToDo e applicati all'originale sull'esecutore del modello.
+     *
+     * @param toDo il ToDo di cui caricare i dettagli
+     * @return lo stesso ToDo, con i dettagli caricati
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public ToDo loadToDoDetails(ToDo toDo) throws SQLException {
+        ToDo detached = onModel(() -> toDo.isDetailsLoaded() ? null : new ToDo(toDo.getId(), toDo.getTitle(), toDo.getOwner()));
+        if (detached == null) {
+            return toDo;
+        }
+        userDAO.loadToDoDetails(detached);
+        onModel(() -> {
+            if (!toDo.isDetailsLoaded()) {
+                toDo.applyDetails(detached.getDescription(), detached.getActivityList(), detached.getUsers());
+            }
+        });
+        return toDo;
+    }
+
+    /**
+     * @param boardNameStr nome del board
+     * @return il board dell'utente loggato con il nome indicato, null se non esiste
+     */
+    private Board findBoard(String boardNameStr) {
+        if (this.user == null) {
+            System.err.println("Error: No user is logged in to load a board.");
+            return null;
+        }
+        try {
+            return user.getBoard(BoardName.fromDisplayName(boardNameStr));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: Invalid board name '" + boardNameStr + "'. " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Recupera i ToDo presenti in un board specificato, nell'ordine del board.
+     *
+     * @param boardNameStr nome del board di cui ottenere i ToDo
+     * @return lista in sola lettura dei ToDo, lista vuota se il board non esiste
+     */
+    public List<ToDo> getToDoList(String boardNameStr) {
+        if (this.user == null) {
+            System.err.println("Error: No user is logged in to get ToDo list.");
+            return List.of();
+        }
+
+        BoardName boardEnumName;
+        try {
+            boardEnumName = BoardName.fromDisplayName(boardNameStr);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: Invalid board name '" + boardNameStr + "'. " + e.getMessage());
+            return List.of();
+        }
+
+        Board board = user.getBoard(boardEnumName);
+        return board != null ? board.getTodoList() : List.of();
+    }
+
     /**
      * Recupera una lista dei titoli di tutti i ToDo presenti in un board specificato.
      *
@@ -399,39 +753,46 @@ public class Controller {
             return;
         }
 
-        Optional<ToDo> toDoToRemoveOptional = board.getTodoList().stream()
-                .filter(toDo -> toDo.getTitle().equals(toDoTitle))
-                .findFirst();
-
-        if (toDoToRemoveOptional.isPresent()) {
-            ToDo toDoToRemove = toDoToRemoveOptional.get();
-
-            // Verifica dei permessi di eliminazione
-            boolean isCreator = isCurrentUserToDoCreator(toDoToRemove);
-            boolean isRecipientDeleting = !isCreator && this.user.getBoard(boardEnumName).getTodoList().contains(toDoToRemove);
+        // Ricerca del ToDo e verifica dei permessi di eliminazione
+        ToDo toDoToRemove = onModel(() -> {
+            Optional<ToDo> toDoToRemoveOptional = board.findByTitle(toDoTitle);
+            if (toDoToRemoveOptional.isEmpty()) {
+                System.err.println("ToDo with title '" + toDoTitle + "' not found on board " + boardNameStr + " for deletion.");
+                return null;
+            }
+            ToDo found = toDoToRemoveOptional.get();
+            boolean isCreator = isCurrentUserToDoCreator(found);
+            boolean isRecipientDeleting = !isCreator && board.containsTodo(found);
 
             if (!isCreator && !isRecipientDeleting) {
                 System.err.println("Permission Denied: You cannot delete this ToDo. Only the creator can delete the original, or you can delete your shared copy.");
-                return;
+                return null;
             }
+            return found;
+        });
+        if (toDoToRemove == null) {
+            return;
+        }
+        boolean isCreator = isCurrentUserToDoCreator(toDoToRemove);
 
-            try {
-                // Se è il creatore, rimuove tutte le condivisioni
-                if (isCreator) {
-                    userDAO.removeAllToDoSharing(toDoToRemove.getId().toString());
-                    System.out.println("Removed all shared instances of ToDo '" + toDoTitle + "'.");
-                }
+        try (UnitOfWork unitOfWork = userDAO.beginUnitOfWork()) {
+            // Se è il creatore, rimuove tutte le condivisioni
+            if (isCreator) {
+                userDAO.removeAllToDoSharing(toDoToRemove.getId().toString());
+                System.out.println("Removed all shared instances of ToDo '" + toDoTitle + "'.");
+            }
 
-                userDAO.deleteToDo(toDoToRemove.getId().toString(), user.getUsername());
+            userDAO.deleteToDo(toDoToRemove.getId().toString(), user.getUsername());
+            unitOfWork.commit();
+            onModel(() -> {
                 board.removeToDo(toDoToRemove);
-                System.out.println("ToDo '" + toDoTitle + "' deleted successfully from board '" + boardNameStr + "'.");
+                untrackDueDate(toDoToRemove);
+            });
+            System.out.println("ToDo '" + toDoTitle + "' deleted successfully from board '" + boardNameStr + "'.");
 
-            } catch (SQLException e) {
-                System.err.println("Database error deleting ToDo: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            System.err.println("ToDo with title '" + toDoTitle + "' not found on board " + boardNameStr + " for deletion.");
+        } catch (SQLException e) {
+            System.err.println("Database error deleting ToDo: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 
@@ -472,28 +833,50 @@ public class Controller {
             return false;
         }
 
-        Optional<ToDo> optionalToDo = currentBoard.getTodoList().stream()
-                .filter(t -> t.getTitle().equals(toDoTitle))
-                .findFirst();
-
-        if (!optionalToDo.isPresent()) {
-            System.err.println("Error: ToDo '" + toDoTitle + "' not found on board '" + currentBoardDisplayName + "'.");
+        ToDo toDoToMove = onModel(() -> {
+            Optional<ToDo> optionalToDo = currentBoard.findByTitle(toDoTitle);
+            if (optionalToDo.isEmpty()) {
+                System.err.println("Error: ToDo '" + toDoTitle + "' not found on board '" + currentBoardDisplayName + "'.");
+                return null;
+            }
+            // Verifica dei permessi - solo il creatore può spostare
+            if (!isCurrentUserToDoCreator(optionalToDo.get())) {
+                System.err.println("Permission Denied: Only the creator can move this ToDo.");
+                return null;
+            }
+            return optionalToDo.get();
+        });
+        if (toDoToMove == null) {
             return false;
         }
-        ToDo toDoToMove = optionalToDo.get();
 
-        // Verifica dei permessi - solo il creatore può spostare
-        if (!isCurrentUserToDoCreator(toDoToMove)) {
-            System.err.println("Permission Denied: Only the creator can move this ToDo.");
+        // Verifica che non esistano duplicati nel board destinazione, anche tra i ToDo non ancora caricati
+        int tailPosition;
+        try {
+            tailPosition = tailPositionForAppend(destinationBoard, destinationBoardEnum, toDoTitle, toDoToMove.getOwner());
+        } catch (SQLException e) {
+            System.err.println("Database error checking board '" + destinationBoardDisplayName + "': " + e.getMessage());
             return false;
         }
-
-        // Verifica che non esistano duplicati nel board destinazione
-        if (destinationBoard.getTodoList().stream().anyMatch(t -> t.getTitle().equals(toDoTitle) && t.getOwner().equals(toDoToMove.getOwner()))) {
+        if (tailPosition < 0 || onModel(() -> destinationBoard.findByTitleAndOwner(toDoTitle, toDoToMove.getOwner()).isPresent())) {
             System.err.println("Error: A ToDo with title '" + toDoTitle + "' and same owner already exists on destination board '" + destinationBoardDisplayName + "'. Move aborted.");
             return false;
         }
 
+        // La posizione in coda alla destinazione viene calcolata prima di scrivere nel database
+        OptionalInt reservedPosition = onModel(() -> {
+            Map<ToDo, Integer> oldPositions = positionsOf(destinationBoard);
+            OptionalInt next = destinationBoard.nextAppendPosition(tailPosition);
+            // Una ridistribuzione cambia la posizione degli altri ToDo della destinazione
+            enqueueChangedPositions(destinationBoard, oldPositions);
+            return next;
+        });
+        if (reservedPosition.isEmpty()) {
+            System.err.println("Error: No room at the end of board '" + destinationBoardDisplayName + "'. Move aborted.");
+            return false;
+        }
+        int position = reservedPosition.getAsInt();
+
         try {
             int destinationBoardId = userDAO.getBoardId(destinationBoardEnum, user.getUsername());
 
@@ -502,11 +885,32 @@ public class Controller {
                 return false;
             }
 
-            // Aggiornamento nel database e nella memoria
-            userDAO.updateToDoBoardId(toDoToMove.getId().toString(), destinationBoardId);
+            // Una posizione ancora in coda per questo ToDo non deve sovrascrivere quella scritta qui
+            positionWrites.flush();
+
+            // Board e posizione cambiano insieme, nella stessa transazione
+            try (UnitOfWork unitOfWork = userDAO.beginUnitOfWork()) {
+                userDAO.updateToDoBoardId(toDoToMove.getId().toString(), destinationBoardId);
+                userDAO.updateToDoPlacements(List.of(new ToDoPlacement(toDoToMove.getId(), position)));
+                unitOfWork.commit();
+            }
 
-            currentBoard.removeToDo(toDoToMove);
-            destinationBoard.addExistingTodo(toDoToMove);
+            onModel(() -> {
+                currentBoard.removeToDo(toDoToMove);
+                untrackDueDate(toDoToMove);
+                if (!destinationBoard.appendExistingTodoAt(toDoToMove, position)) {
+                    // La coda della destinazione è cambiata nel frattempo: serve una nuova posizione
+                    Map<ToDo, Integer> oldPositions = positionsOf(destinationBoard);
+                    if (!destinationBoard.appendExistingTodo(toDoToMove, position)) {
+                        System.err.println("WARN: ToDo '" + toDoTitle + "' was moved in the database but will appear on board '" + destinationBoardDisplayName + "' only after a reload.");
+                        return;
+                    }
+                    positionWrites.enqueuePosition(toDoToMove);
+                    enqueueChangedPositions(destinationBoard, oldPositions);
+                }
+                // Il ToDo resta in un board dell'utente: la scadenza continua a essere seguita
+                trackDueDate(toDoToMove);
+            });
 
             System.out.println("ToDo '" + toDoTitle + "' successfully moved from '" + currentBoardDisplayName + "' to '" + destinationBoardDisplayName + "'.");
             return true;
@@ -545,41 +949,37 @@ public class Controller {
             return true;
         }
 
-        boolean allSuccess = true;
-        for (String username : usernamesToShareWith) {
-            try {
-                // Condivisione nel database
-                userDAO.shareToDo(toDo.getId().toString(), username);
-                System.out.println("DEBUG: ToDo '" + toDo.getTitle() + "' DB shared with '" + username + "'.");
-
-                // Aggiornamento dei dati in memoria del destinatario
-                Optional<User> recipientUserOptional = userDAO.getUserByUsername(username);
-
-                if (recipientUserOptional.isPresent()) {
-                    User recipientUser = recipientUserOptional.get();
-
-                    userDAO.loadUserBoardsAndToDos(recipientUser);
-
-                    toDo.addSharedUser(recipientUser);
-
-                    System.out.println("ToDo '" + toDo.getTitle() + "' shared successfully with user '" + username + "' and recipient's in-memory data updated.");
+        try {
+            // Shared users are part of the lazily loaded details: load them before touching the model
+            loadToDoDetails(toDo);
+            Set<User> recipients = userDAO.shareToDoWithUsers(toDo.getId().toString(), usernamesToShareWith);
+
+            // Aggiornamento in memoria del solo ToDo condiviso, senza ricaricare i dati dei destinatari
+            Set<String> sharedUsernames = new HashSet<>();
+            onModel(() -> {
+                for (User recipient : recipients) {
+                    if (toDo.getUsers().stream().noneMatch(u -> u.getUsername().equals(recipient.getUsername()))) {
+                        toDo.addSharedUser(recipient);
+                    }
+                    sharedUsernames.add(recipient.getUsername());
+                }
+            });
+            System.out.println("ToDo '" + toDo.getTitle() + "' shared successfully with " + sharedUsernames + ".");
 
-                } else {
-                    System.err.println("User '" + username + "' not found after sharing. In-memory update for recipient failed.");
+            boolean allSuccess = true;
+            for (String username : usernamesToShareWith) {
+                if (!sharedUsernames.contains(username)) {
+                    System.err.println("User '" + username + "' not found. ToDo '" + toDo.getTitle() + "' was not shared with them.");
                     allSuccess = false;
                 }
-
-            } catch (SQLException e) {
-                System.err.println("Database error sharing ToDo '" + toDo.getTitle() + "' with '" + username + "': " + e.getMessage());
-                e.printStackTrace();
-                allSuccess = false;
-            } catch (IllegalArgumentException e) {
-                System.err.println("Error with board name during sharing: " + e.getMessage());
-                e.printStackTrace();
-                allSuccess = false;
             }
+            return allSuccess;
+
+        } catch (SQLException e) {
+            System.err.println("Database error sharing ToDo '" + toDo.getTitle() + "' with " + usernamesToShareWith + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
         }
-        return allSuccess;
     }
 
     /**
@@ -608,11 +1008,20 @@ public class Controller {
             return true;
         }
 
+        try {
+            // Shared users are part of the lazily loaded details: load them before touching the model
+            loadToDoDetails(toDo);
+        } catch (SQLException e) {
+            System.err.println("Database error loading the details of ToDo '" + toDo.getTitle() + "': " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+
         boolean allSuccess = true;
         for (String username : usernamesToRemoveSharing) {
             try {
                 userDAO.removeToDoSharing(toDo.getId().toString(), username);
-                toDo.removeSharedUser(username);
+                onModel(() -> toDo.removeSharedUser(username));
                 System.out.println("Removed sharing of ToDo '" + toDo.getTitle() + "' from user '" + username + "'.");
 
             } catch (SQLException e) {
@@ -643,6 +1052,28 @@ public class Controller {
         }
     }
 
+    /**
+     * Cerca gli utenti per prefisso dell'username, una pagina alla volta.
+     *
+     * @param prefix prefisso dell'username (stringa vuota per tutti gli utenti)
+     * @param afterUsername ultimo username della pagina precedente, null per la prima pagina
+     * @param limit numero massimo di utenti da restituire
+     * @return ID e username degli utenti trovati, lista vuota in caso di errore
+     */
+    public List<UserSummary> searchUsers(String prefix, String afterUsername, int limit) {
+        if (this.user == null) {
+            System.err.println("Error: No user is logged in to search users.");
+            return List.of();
+        }
+        try {
+            return userDAO.searchUsers(prefix, afterUsername, limit);
+        } catch (SQLException e) {
+            System.err.println("Database error searching users: " + e.getMessage());
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
     /**
      * Verifica se l'utente correntemente loggato è il creatore di un ToDo specificato.
      *
@@ -682,21 +1113,24 @@ public class Controller {
             return new ArrayList<>();
         }
 
-        Optional<ToDo> optionalToDo = board.getTodoList().stream()
-                .filter(t -> t.getTitle().equals(toDoTitle))
-                .findFirst();
-
-        if (optionalToDo.isPresent()) {
-            ToDo originalToDo = optionalToDo.get();
+        ToDo originalToDo = onModel(() -> board.findByTitle(toDoTitle).orElse(null));
 
+        if (originalToDo != null) {
             // Verifica dei permessi - solo il creatore può vedere le condivisioni
             if (!isCurrentUserToDoCreator(originalToDo)) {
                 System.err.println("Permission Denied: Only the creator can see who this ToDo is shared with.");
                 return new ArrayList<>();
             }
-            return originalToDo.getUsers().stream()
+            try {
+                loadToDoDetails(originalToDo);
+            } catch (SQLException e) {
+                System.err.println("Database error loading the users ToDo '" + toDoTitle + "' is shared with: " + e.getMessage());
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+            return onModel(() -> originalToDo.getUsers().stream()
                     .map(User::getUsername)
-                    .collect(Collectors.toCollection(ArrayList::new));
+                    .collect(Collectors.toCollection(ArrayList::new)));
         } else {
             System.err.println("Error: ToDo '" + toDoTitle + "' not found in board '" + boardNameStr + "'.");
             return new ArrayList<>();
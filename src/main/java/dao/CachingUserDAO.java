@@ -0,0 +1,376 @@
+package dao;
+
+import models.User;
+import models.ToDo;
+import models.board.Board;
+import models.board.BoardName;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decoratore di un {@link UserDAO} che mantiene in cache gli utenti letti per username,
+ * l'elenco di tutti gli utenti e gli ID delle board.
+ *
+ * <p>La cache degli utenti è una LRU limitata a un numero massimo di voci. Ogni voce scade
+ * dopo il tempo indicato; anche gli username inesistenti vengono memorizzati (cache negativa),
+ * con una scadenza più breve, così che lo stesso username errato non interroghi ogni volta
+ * il database. {@link #saveUser(User)} invalida la voce del nuovo utente e l'elenco di tutti gli utenti.
+ * La cache conserva copie degli utenti letti e ne restituisce ogni volta una copia nuova, senza board:
+ * un utente restituito, ad esempio quello del login a cui vengono poi caricate le board,
+ * non è mai condiviso con altri chiamanti.</p>
+ *
+ * <p>Gli ID delle board vengono registrati quando le board di un utente sono caricate o salvate,
+ * così che {@link #getBoardId(BoardName, String)} non interroghi il database ad ogni modifica
+ * di un ToDo. Le board non vengono mai eliminate, quindi questi ID non scadono.</p>
+ *
+ * <p>Le altre operazioni vengono passate al DAO decorato. Le statistiche di hit e miss
+ * sono disponibili con {@link #getStats()}.</p>
+ */
+public class CachingUserDAO implements UserDAO {
+
+    private final UserDAO delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    /** Utenti per username in ordine di accesso, dal meno recente */
+    private final LinkedHashMap<String, CacheEntry<Optional<User>>> usersByUsername;
+
+    /** Elenco di tutti gli utenti, null se non in cache */
+    private CacheEntry<Set<User>> allUsers;
+
+    /** ID delle board per username del proprietario e nome della board */
+    private final Map<String, Map<BoardName, Integer>> boardIds = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder boardIdHits = new LongAdder();
+    private final LongAdder boardIdMisses = new LongAdder();
+
+    /**
+     * Crea la cache attorno al DAO indicato.
+     *
+     * @param delegate il DAO da cui leggere in caso di miss
+     * @param maxEntries numero massimo di username in cache
+     * @param ttl durata di validità di un utente e dell'elenco di tutti gli utenti
+     * @param negativeTtl durata di validità di un username inesistente
+     */
+    public CachingUserDAO(UserDAO delegate, int maxEntries, Duration ttl, Duration negativeTtl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.usersByUsername = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<Optional<User>>> eldest) {
+                if (size() > CachingUserDAO.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Dopo il salvataggio la voce dell'utente e l'elenco di tutti gli utenti vengono invalidati.</p>
+     */
+    @Override
+    public boolean saveUser(User user) throws SQLException {
+        try {
+            return delegate.saveUser(user);
+        } finally {
+            invalidate(user.getUsername());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Gli utenti trovati restano in cache per la durata indicata, quelli inesistenti per la durata negativa.</p>
+     */
+    @Override
+    public Optional<User> getUserByUsername(String username) throws SQLException {
+        long now = System.nanoTime();
+        synchronized (this) {
+            CacheEntry<Optional<User>> entry = usersByUsername.get(username);
+            if (entry != null && entry.isValid(now)) {
+                hits.increment();
+                if (entry.value.isEmpty()) {
+                    negativeHits.increment();
+                }
+                return entry.value.map(CachingUserDAO::detachedCopy);
+            }
+        }
+
+        misses.increment();
+        Optional<User> user = delegate.getUserByUsername(username);
+        long expiresAt = System.nanoTime() + (user.isPresent() ? ttlNanos : negativeTtlNanos);
+        synchronized (this) {
+            usersByUsername.put(username, new CacheEntry<>(user.map(CachingUserDAO::detachedCopy), expiresAt));
+        }
+        return user;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>L'elenco viene riletto dal database solo alla scadenza o dopo la registrazione di un utente.</p>
+     */
+    @Override
+    public Set<User> getAllUsers() throws SQLException {
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (allUsers != null && allUsers.isValid(now)) {
+                hits.increment();
+                Set<User> copies = new HashSet<>(allUsers.value.size() * 2);
+                for (User user : allUsers.value) {
+                    copies.add(detachedCopy(user));
+                }
+                return copies;
+            }
+        }
+
+        misses.increment();
+        Set<User> users = delegate.getAllUsers();
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (this) {
+            Set<User> cached = new HashSet<>(users.size() * 2);
+            for (User user : users) {
+                User copy = detachedCopy(user);
+                cached.add(copy);
+                usersByUsername.put(user.getUsername(), new CacheEntry<>(Optional.of(copy), expiresAt));
+            }
+            allUsers = new CacheEntry<>(Set.copyOf(cached), expiresAt);
+        }
+        return users;
+    }
+
+    /**
+     * @return un nuovo utente con ID, username e password dell'utente indicato, senza board
+     */
+    private static User detachedCopy(User user) {
+        return new User(user.getUsername(), user.getHashedPassword(), null, user.getId());
+    }
+
+    /**
+     * Rimuove dalla cache un username e l'elenco di tutti gli utenti.
+     *
+     * @param username l'username da invalidare
+     */
+    public synchronized void invalidate(String username) {
+        usersByUsername.remove(username);
+        allUsers = null;
+    }
+
+    /**
+     * Svuota la cache, senza azzerare le statistiche.
+     */
+    public synchronized void invalidateAll() {
+        usersByUsername.clear();
+        allUsers = null;
+        boardIds.clear();
+    }
+
+    /** @return numero di letture servite dalla cache, incluse quelle negative */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** @return numero di letture che hanno interrogato il database */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** @return frazione delle letture servite dalla cache, tra 0 e 1 (0 se non ci sono state letture) */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /** @return riepilogo leggibile delle statistiche della cache */
+    public String getStats() {
+        int size;
+        synchronized (this) {
+            size = usersByUsername.size();
+        }
+        return String.format("User cache: %d hits (%d negative), %d misses, hit rate %.1f%%, %d evictions, %d/%d entries; board IDs: %d hits, %d misses",
+                hits.sum(), negativeHits.sum(), misses.sum(), getHitRate() * 100, evictions.sum(), size, maxEntries,
+                boardIdHits.sum(), boardIdMisses.sum());
+    }
+
+    @Override
+    public UnitOfWork beginUnitOfWork() throws SQLException {
+        return delegate.beginUnitOfWork();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Gli ID delle board caricate vengono registrati nella cache.</p>
+     */
+    @Override
+    public void loadUserBoardsAndToDos(User user) throws SQLException {
+        delegate.loadUserBoardsAndToDos(user);
+        rememberBoards(user);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Gli ID delle board caricate vengono registrati nella cache.</p>
+     */
+    @Override
+    public void loadUserBoardsLazily(User user, int pageSize) throws SQLException {
+        delegate.loadUserBoardsLazily(user, pageSize);
+        rememberBoards(user);
+    }
+
+    @Override
+    public void loadToDoDetails(ToDo toDo) throws SQLException {
+        delegate.loadToDoDetails(toDo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Gli ID già noti vengono restituiti senza interrogare il database; quelli letti vengono registrati.</p>
+     */
+    @Override
+    public int getBoardId(BoardName boardName, String username) throws SQLException {
+        Map<BoardName, Integer> ids = boardIds.get(username);
+        Integer id = ids != null ? ids.get(boardName) : null;
+        if (id != null) {
+            boardIdHits.increment();
+            return id;
+        }
+
+        boardIdMisses.increment();
+        int boardId = delegate.getBoardId(boardName, username);
+        if (boardId != -1) {
+            rememberBoard(username, boardName, boardId);
+        }
+        return boardId;
+    }
+
+    @Override
+    public int getMaxToDoPosition(int boardId) throws SQLException {
+        return delegate.getMaxToDoPosition(boardId);
+    }
+
+    @Override
+    public boolean existsToDo(int boardId, String title, String owner) throws SQLException {
+        return delegate.existsToDo(boardId, title, owner);
+    }
+
+    @Override
+    public void saveToDo(ToDo toDo, int boardId) throws SQLException {
+        delegate.saveToDo(toDo, boardId);
+    }
+
+    @Override
+    public void updateToDo(ToDo toDo, int boardId) throws SQLException {
+        delegate.updateToDo(toDo, boardId);
+    }
+
+    @Override
+    public void updateToDoBoardId(String toDoId, int newBoardId) throws SQLException {
+        delegate.updateToDoBoardId(toDoId, newBoardId);
+    }
+
+    @Override
+    public void updateToDoPlacements(Collection<ToDoPlacement> placements) throws SQLException {
+        delegate.updateToDoPlacements(placements);
+    }
+
+    @Override
+    public void deleteToDo(String toDoId, String username) throws SQLException {
+        delegate.deleteToDo(toDoId, username);
+    }
+
+    @Override
+    public void shareToDo(String toDoId, String sharedWithUsername) throws SQLException {
+        delegate.shareToDo(toDoId, sharedWithUsername);
+    }
+
+    @Override
+    public Set<User> shareToDoWithUsers(String toDoId, Collection<String> usernames) throws SQLException {
+        return delegate.shareToDoWithUsers(toDoId, usernames);
+    }
+
+    @Override
+    public void removeToDoSharing(String toDoId, String sharedWithUsername) throws SQLException {
+        delegate.removeToDoSharing(toDoId, sharedWithUsername);
+    }
+
+    @Override
+    public void removeAllToDoSharing(String toDoId) throws SQLException {
+        delegate.removeAllToDoSharing(toDoId);
+    }
+
+    @Override
+    public List<UserSummary> searchUsers(String prefix, String afterUsername, int limit) throws SQLException {
+        return delegate.searchUsers(prefix, afterUsername, limit);
+    }
+
+    @Override
+    public List<String> getSharedUsernamesForToDo(String toDoId) throws SQLException {
+        return delegate.getSharedUsernamesForToDo(toDoId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>L'ID assegnato alla nuova board viene registrato nella cache.</p>
+     */
+    @Override
+    public void saveBoard(Board board, UUID userId) throws SQLException {
+        delegate.saveBoard(board, userId);
+        if (board.getId() > 0) {
+            rememberBoard(board.getOwner(), board.getName(), board.getId());
+        }
+    }
+
+    @Override
+    public void updateBoard(Board board) throws SQLException {
+        delegate.updateBoard(board);
+    }
+
+    private void rememberBoards(User user) {
+        for (Board board : user.getBoardList()) {
+            rememberBoard(user.getUsername(), board.getName(), board.getId());
+        }
+    }
+
+    private void rememberBoard(String username, BoardName boardName, int boardId) {
+        boardIds.computeIfAbsent(username, u -> new ConcurrentHashMap<>()).put(boardName, boardId);
+    }
+
+    /**
+     * Valore in cache con il relativo istante di scadenza, in nanosecondi di {@link System#nanoTime()}.
+     */
+    private static final class CacheEntry<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private CacheEntry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValid(long now) {
+            return now - expiresAt < 0;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package dao;
+
+import notification.DueNotification;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Interfaccia Data Access Object (DAO) per le notifiche di scadenza dei ToDo di tutti gli utenti.
+ */
+public interface NotificationDAO {
+
+    /**
+     * Recupera una pagina di ToDo non completati, con scadenza nell'intervallo indicato,
+     * per cui non è ancora stata inviata una notifica per la data di scadenza attuale.
+     * Le pagine sono ordinate per data di scadenza e ID; la pagina successiva si ottiene
+     * passando data e ID dell'ultimo elemento ricevuto.
+     *
+     * @param from primo giorno di scadenza (incluso)
+     * @param to ultimo giorno di scadenza (incluso)
+     * @param afterDueDate data di scadenza dell'ultimo elemento della pagina precedente, o null per la prima pagina
+     * @param afterId ID dell'ultimo elemento della pagina precedente, o null per la prima pagina
+     * @param limit numero massimo di elementi della pagina
+     * @return le notifiche da inviare, al massimo {@code limit}
+     * @throws SQLException se si verifica un errore SQL
+     */
+    List<DueNotification> findDueNotNotified(LocalDate from, LocalDate to, LocalDate afterDueDate, UUID afterId, int limit) throws SQLException;
+
+    /**
+     * Registra come inviate le notifiche indicate, così che non vengano più proposte
+     * finché la data di scadenza del ToDo non cambia.
+     *
+     * @param notifications le notifiche inviate
+     * @throws SQLException se si verifica un errore SQL
+     */
+    void markNotified(Collection<DueNotification> notifications) throws SQLException;
+}
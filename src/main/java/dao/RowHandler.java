@@ -0,0 +1,21 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Consumatore delle righe di una query letta in streaming: viene chiamato una volta per ogni riga,
+ * mentre il result set è posizionato su di essa, così che nessuna riga debba essere trattenuta
+ * dopo essere stata elaborata.
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Elabora la riga corrente.
+     *
+     * @param rs il result set posizionato sulla riga da elaborare; non va spostato né chiuso
+     * @throws SQLException se si verifica un errore durante la lettura delle colonne
+     */
+    void handleRow(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,31 @@
+package dao;
+
+import java.util.UUID;
+
+/**
+ * Posizione di un ToDo nella propria board, da scrivere nel database in differita.
+ * Più aggiornamenti dello stesso ToDo vengono fusi in uno solo, con l'ultimo valore che prevale.
+ */
+public final class ToDoPlacement {
+    private final UUID toDoId;
+    private final int position;
+
+    /**
+     * @param toDoId ID del ToDo
+     * @param position nuova posizione del ToDo nella board
+     */
+    public ToDoPlacement(UUID toDoId, int position) {
+        this.toDoId = toDoId;
+        this.position = position;
+    }
+
+    /** @return ID del ToDo */
+    public UUID getToDoId() {
+        return toDoId;
+    }
+
+    /** @return Nuova posizione del ToDo nella board */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,102 @@
+package dao;
+
+import models.ToDo;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Costruisce i ToDo dalle righe di una query sulla tabella {@code todos}, leggendo le colonne per indice.
+ *
+ * <p>Gli indici delle colonne vengono risolti una sola volta per ogni {@link ResultSet}, alla lettura
+ * della sua prima riga, invece di cercare il nome di ogni colonna ad ogni riga. La query deve restituire
+ * le colonne {@code id, title, status, due_date, created_date, position, owner_username, url, image, color},
+ * con qualunque prefisso di tabella e in qualunque ordine; eventuali colonne aggiuntive indicate alla
+ * costruzione vengono risolte insieme alle altre e lette dal chiamante con {@link #getExtraColumnIndex(int)}.</p>
+ *
+ * <p>Un mapper non è thread-safe: va creato per ogni esecuzione di una query.</p>
+ */
+public final class ToDoRowMapper {
+
+    private final String[] extraLabels;
+    private final int[] extraColumns;
+
+    /** Result set di cui sono stati risolti gli indici */
+    private ResultSet boundTo;
+
+    private int idColumn;
+    private int titleColumn;
+    private int statusColumn;
+    private int dueDateColumn;
+    private int createdDateColumn;
+    private int positionColumn;
+    private int ownerColumn;
+    private int urlColumn;
+    private int imageColumn;
+    private int colorColumn;
+
+    /**
+     * Crea un mapper per le query che restituiscono le colonne di un ToDo ed eventualmente altre colonne.
+     *
+     * @param extraLabels nomi delle colonne aggiuntive lette dal chiamante
+     */
+    public ToDoRowMapper(String... extraLabels) {
+        this.extraLabels = extraLabels.clone();
+        this.extraColumns = new int[extraLabels.length];
+    }
+
+    /**
+     * Costruisce il ToDo della riga corrente.
+     *
+     * @param rs il result set posizionato sulla riga da leggere
+     * @return il todo letto dalla riga corrente
+     * @throws SQLException se manca una colonna o si verifica un errore durante la lettura
+     */
+    public ToDo map(ResultSet rs) throws SQLException {
+        if (rs != boundTo) {
+            bind(rs);
+        }
+        ToDo toDo = new ToDo(
+                (UUID) rs.getObject(idColumn),
+                rs.getString(titleColumn),
+                rs.getString(ownerColumn)
+        );
+        toDo.setStatus(rs.getString(statusColumn));
+        Date sqlDueDate = rs.getDate(dueDateColumn);
+        toDo.setDueDate(sqlDueDate != null ? sqlDueDate.toLocalDate() : null);
+        toDo.setCreatedDate(rs.getDate(createdDateColumn).toLocalDate());
+        toDo.setPosition(rs.getInt(positionColumn));
+        toDo.setUrl(rs.getString(urlColumn));
+        toDo.setImage(rs.getString(imageColumn));
+        toDo.setColor(rs.getString(colorColumn));
+        return toDo;
+    }
+
+    /**
+     * Restituisce l'indice di una colonna aggiuntiva nel result set dell'ultima riga letta con {@link #map(ResultSet)}.
+     *
+     * @param extra posizione della colonna tra quelle indicate alla costruzione
+     * @return l'indice della colonna nel result set
+     */
+    public int getExtraColumnIndex(int extra) {
+        return extraColumns[extra];
+    }
+
+    private void bind(ResultSet rs) throws SQLException {
+        idColumn = rs.findColumn("id");
+        titleColumn = rs.findColumn("title");
+        statusColumn = rs.findColumn("status");
+        dueDateColumn = rs.findColumn("due_date");
+        createdDateColumn = rs.findColumn("created_date");
+        positionColumn = rs.findColumn("position");
+        ownerColumn = rs.findColumn("owner_username");
+        urlColumn = rs.findColumn("url");
+        imageColumn = rs.findColumn("image");
+        colorColumn = rs.findColumn("color");
+        for (int i = 0; i < extraLabels.length; i++) {
+            extraColumns[i] = rs.findColumn(extraLabels[i]);
+        }
+        boundTo = rs;
+    }
+}
@@ -0,0 +1,135 @@
+package dao;
+
+import db.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unità di lavoro che raggruppa più operazioni del DAO in un'unica transazione.
+ *
+ * <p>Finché l'unità è aperta, tutte le operazioni del {@link UserDAO} eseguite dallo stesso thread
+ * usano la stessa connessione e vengono rese persistenti insieme da {@link #commit()}.
+ * Se l'unità viene chiusa senza commit, tutte le modifiche vengono annullate.</p>
+ *
+ * <p>Uso tipico:</p>
+ * <pre>
+ * try (UnitOfWork unitOfWork = userDAO.beginUnitOfWork()) {
+ *     userDAO.updateToDo(toDo, boardId);
+ *     userDAO.removeToDoSharing(toDoId, username);
+ *     unitOfWork.commit();
+ * }
+ * </pre>
+ *
+ * <p>Un'unità aperta mentre un'altra è già attiva sullo stesso thread partecipa alla transazione
+ * esistente: il suo commit non ha effetto e la sua chiusura senza commit ne forza il rollback.</p>
+ */
+public class UnitOfWork implements AutoCloseable {
+
+    /** Unità di lavoro più esterna attiva sul thread corrente */
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final UnitOfWork outer;
+    private boolean committed;
+    private boolean closed;
+    private boolean rollbackOnly;
+    private final List<Runnable> afterCommitActions = new ArrayList<>();
+
+    private UnitOfWork(Connection connection, UnitOfWork outer) {
+        this.connection = connection;
+        this.outer = outer;
+    }
+
+    /**
+     * Apre una nuova unità di lavoro sul thread corrente, oppure partecipa a quella già aperta.
+     *
+     * @return l'unità di lavoro, da chiudere con try-with-resources
+     * @throws SQLException se non è possibile ottenere una connessione o avviare la transazione
+     */
+    public static UnitOfWork begin() throws SQLException {
+        UnitOfWork active = current.get();
+        if (active != null) {
+            return new UnitOfWork(active.connection, active);
+        }
+
+        Connection connection = DatabaseConnection.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            DatabaseConnection.bindTransaction(connection);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(connection, null);
+        current.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * Registra un'azione da eseguire solo dopo il commit della transazione più esterna,
+     * ad esempio per allineare lo stato in memoria a quanto salvato nel database.
+     *
+     * @param action l'azione da eseguire dopo il commit
+     */
+    public void afterCommit(Runnable action) {
+        if (outer != null) {
+            outer.afterCommit(action);
+        } else {
+            afterCommitActions.add(action);
+        }
+    }
+
+    /**
+     * Rende persistenti tutte le operazioni eseguite nell'unità di lavoro.
+     * Per un'unità annidata il commit viene rimandato a quella più esterna.
+     *
+     * @throws SQLException se il commit fallisce o se una unità annidata è stata chiusa senza commit
+     */
+    public void commit() throws SQLException {
+        if (closed) {
+            throw new IllegalStateException("Unit of work is already closed.");
+        }
+        if (outer == null) {
+            if (rollbackOnly) {
+                throw new SQLException("Unit of work was marked for rollback by a nested unit of work.");
+            }
+            connection.commit();
+            afterCommitActions.forEach(Runnable::run);
+        }
+        committed = true;
+    }
+
+    /**
+     * Chiude l'unità di lavoro. Se non è stato eseguito il commit, tutte le modifiche vengono annullate
+     * e la connessione torna al pool.
+     *
+     * @throws SQLException se si verifica un errore durante il rollback
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (outer != null) {
+            if (!committed) {
+                outer.rollbackOnly = true;
+            }
+            return;
+        }
+
+        current.remove();
+        DatabaseConnection.unbindTransaction();
+        try {
+            if (!committed) {
+                connection.rollback();
+            }
+            connection.setAutoCommit(true);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import models.ToDo;
 import models.board.Board;
 import models.board.BoardName;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -21,6 +22,15 @@ import java.util.UUID;
  */
 public interface UserDAO {
 
+    /**
+     * Apre un'unità di lavoro: le operazioni successive del thread corrente vengono eseguite
+     * in un'unica transazione fino al commit o alla chiusura dell'unità.
+     *
+     * @return l'unità di lavoro da chiudere con try-with-resources
+     * @throws SQLException se si verifica un errore SQL
+     */
+    UnitOfWork beginUnitOfWork() throws SQLException;
+
     /**
      * Salva un nuovo utente nel database.
      *
@@ -47,6 +57,24 @@ public interface UserDAO {
      */
     void loadUserBoardsAndToDos(User user) throws SQLException;
 
+    /**
+     * Carica i board di un utente e i ToDo condivisi con lui; i ToDo di cui è proprietario
+     * vengono caricati dai board una pagina alla volta.
+     *
+     * @param user l'utente di cui caricare i dati
+     * @param pageSize numero di ToDo per pagina
+     * @throws SQLException se si verifica un errore SQL
+     */
+    void loadUserBoardsLazily(User user, int pageSize) throws SQLException;
+
+    /**
+     * Carica descrizione, attività e utenti condivisi di un ToDo caricato in forma ridotta.
+     *
+     * @param toDo il ToDo di cui caricare i dettagli
+     * @throws SQLException se si verifica un errore SQL
+     */
+    void loadToDoDetails(ToDo toDo) throws SQLException;
+
     /**
      * Ottiene l'ID di un board specifico per utente.
      *
@@ -57,6 +85,26 @@ public interface UserDAO {
      */
     int getBoardId(BoardName boardName, String username) throws SQLException;
 
+    /**
+     * Restituisce la posizione più alta tra i ToDo di un board, anche se non ancora caricati.
+     *
+     * @param boardId l'ID del board
+     * @return la posizione dell'ultimo ToDo del board, 0 se il board è vuoto
+     * @throws SQLException se si verifica un errore SQL
+     */
+    int getMaxToDoPosition(int boardId) throws SQLException;
+
+    /**
+     * Verifica se un board contiene già un ToDo con il titolo e il proprietario indicati.
+     *
+     * @param boardId l'ID del board
+     * @param title il titolo del ToDo
+     * @param owner lo username del proprietario
+     * @return true se il ToDo esiste
+     * @throws SQLException se si verifica un errore SQL
+     */
+    boolean existsToDo(int boardId, String title, String owner) throws SQLException;
+
     /**
      * Salva un nuovo ToDo in un board specifico.
      *
@@ -84,6 +132,14 @@ public interface UserDAO {
      */
     void updateToDoBoardId(String toDoId, int newBoardId) throws SQLException;
 
+    /**
+     * Aggiorna la posizione di più ToDo con un'unica operazione batch.
+     *
+     * @param placements le nuove posizioni dei ToDo
+     * @throws SQLException se si verifica un errore SQL
+     */
+    void updateToDoPlacements(Collection<ToDoPlacement> placements) throws SQLException;
+
     /**
      * Elimina un ToDo.
      *
@@ -102,6 +158,17 @@ public interface UserDAO {
      */
     void shareToDo(String toDoId, String sharedWithUsername) throws SQLException;
 
+    /**
+     * Condivide un ToDo con più utenti in un'unica operazione.
+     * Le condivisioni già esistenti vengono ignorate.
+     *
+     * @param toDoId l'ID del ToDo da condividere
+     * @param usernames gli username degli utenti con cui condividere
+     * @return gli utenti trovati con cui il ToDo è ora condiviso
+     * @throws SQLException se si verifica un errore SQL
+     */
+    Set<User> shareToDoWithUsers(String toDoId, Collection<String> usernames) throws SQLException;
+
     /**
      * Rimuove la condivisione di un ToDo con un utente specifico.
      *
@@ -127,6 +194,18 @@ public interface UserDAO {
      */
     Set<User> getAllUsers() throws SQLException;
 
+    /**
+     * Cerca gli utenti il cui username inizia con il prefisso indicato, in ordine di username.
+     * Le pagine successive si ottengono passando l'ultimo username della pagina precedente.
+     *
+     * @param prefix prefisso dell'username (stringa vuota per tutti gli utenti)
+     * @param afterUsername ultimo username già letto, null per la prima pagina
+     * @param limit numero massimo di utenti da restituire
+     * @return ID e username degli utenti trovati
+     * @throws SQLException se si verifica un errore SQL
+     */
+    List<UserSummary> searchUsers(String prefix, String afterUsername, int limit) throws SQLException;
+
     /**
      * Ottiene gli username degli utenti con cui un ToDo è condiviso.
      *
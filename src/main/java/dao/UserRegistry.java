@@ -0,0 +1,136 @@
+package dao;
+
+import models.User;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Mappa di identità degli utenti con cui sono condivisi i ToDo: ad ogni username corrisponde
+ * un solo oggetto {@link User}, finché resta nella mappa.
+ *
+ * <p>Gli utenti condivisi vengono così rappresentati una sola volta, qualunque sia il numero di
+ * condivisioni: un utente che condivide migliaia di ToDo con le stesse dieci persone tiene in
+ * memoria dieci oggetti {@code User}. Gli username non ancora noti vengono risolti con una sola
+ * query per blocco con {@link #resolveAll(Connection, Collection)}.</p>
+ *
+ * <p>La mappa contiene solo identificativi: ogni utente è costruito con ID e username, senza
+ * password né board, e non va mai usato per il login o per caricare le board, che richiedono
+ * un utente letto dal database. La mappa è una LRU limitata a {@link #DEFAULT_MAX_SIZE} voci;
+ * {@link #invalidate(String)} rimuove un username il cui utente è stato creato o ricreato.</p>
+ */
+public class UserRegistry {
+
+    /** Numero massimo predefinito di utenti mantenuti nella mappa */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /** Utenti condivisi per username, in ordine di accesso dal meno recente */
+    private final Map<String, User> principalsByUsername;
+
+    /**
+     * Crea una mappa limitata a {@link #DEFAULT_MAX_SIZE} utenti.
+     */
+    public UserRegistry() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Crea una mappa limitata al numero di utenti indicato.
+     *
+     * @param maxSize numero massimo di utenti mantenuti
+     */
+    public UserRegistry(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.principalsByUsername = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Risolve più username nei rispettivi utenti condivisi, leggendo dal database
+     * con una sola query solo quelli non presenti nella mappa.
+     *
+     * @param connection la connessione su cui eseguire la query
+     * @param usernames gli username da risolvere
+     * @return gli utenti trovati, per username; gli username inesistenti non compaiono
+     * @throws SQLException se si verifica un errore durante la lettura degli utenti
+     */
+    public Map<String, User> resolveAll(Connection connection, Collection<String> usernames) throws SQLException {
+        Map<String, User> resolved = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (principalsByUsername) {
+            for (String username : usernames) {
+                User user = principalsByUsername.get(username);
+                if (user != null) {
+                    resolved.put(username, user);
+                } else {
+                    missing.add(username);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // Only the identifiers are read: the password hash never enters the map
+            String sql = "SELECT id, username FROM users WHERE username = ANY(?)";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                Array names = connection.createArrayOf("varchar", missing.toArray());
+                pstmt.setArray(1, names);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    User user = register(rs.getString("username"), (UUID) rs.getObject("id"));
+                    resolved.put(user.getUsername(), user);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Rimuove un username dalla mappa, ad esempio dopo la registrazione di un utente con quel nome.
+     *
+     * @param username l'username da rimuovere
+     */
+    public void invalidate(String username) {
+        synchronized (principalsByUsername) {
+            principalsByUsername.remove(username);
+        }
+    }
+
+    /**
+     * @return numero di utenti nella mappa
+     */
+    public int size() {
+        synchronized (principalsByUsername) {
+            return principalsByUsername.size();
+        }
+    }
+
+    /**
+     * Registra l'utente letto dal database, sostituendo quello presente solo se l'ID è cambiato.
+     */
+    private User register(String username, UUID id) {
+        synchronized (principalsByUsername) {
+            User existing = principalsByUsername.get(username);
+            if (existing != null && existing.getId().equals(id)) {
+                return existing;
+            }
+            User principal = new User(username, null, null, id);
+            principalsByUsername.put(username, principal);
+            return principal;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dao;
+
+import java.util.UUID;
+
+/**
+ * Voce della rubrica degli utenti: solo ID e username, senza password né board.
+ */
+public final class UserSummary {
+    private final UUID id;
+    private final String username;
+
+    /**
+     * @param id ID dell'utente
+     * @param username username dell'utente
+     */
+    public UserSummary(UUID id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+
+    /** @return ID dell'utente */
+    public UUID getId() {
+        return id;
+    }
+
+    /** @return username dell'utente */
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
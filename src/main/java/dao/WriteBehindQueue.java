@@ -0,0 +1,164 @@
+package dao;
+
+import models.ToDo;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coda di scrittura differita per le modifiche di posizione dei ToDo.
+ *
+ * <p>Le modifiche vengono accumulate in memoria, una sola per ToDo con l'ultimo valore,
+ * e scritte con un unico UPDATE in batch quando non ne arrivano di nuove per il periodo
+ * di quiete indicato, oppure al più tardi dopo {@link #MAX_DELAY_FACTOR} periodi di quiete.
+ * Spostare un ToDo di cento posizioni costa così una sola scrittura.</p>
+ *
+ * <p>{@link #close()} scrive le modifiche ancora in coda: il chiamante la registra
+ * come shutdown hook, così che nulla vada perso a una chiusura regolare dell'applicazione.
+ * Se una scrittura fallisce le modifiche tornano in coda, senza sovrascrivere quelle più recenti.</p>
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    /** Ritardo massimo di una scrittura, in multipli del periodo di quiete */
+    private static final int MAX_DELAY_FACTOR = 10;
+
+    private final UserDAO userDAO;
+    private final long quietPeriodNanos;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Modifiche in attesa di scrittura, una per ToDo */
+    private Map<UUID, ToDoPlacement> pending = new LinkedHashMap<>();
+
+    /** Serializza le scritture, così che una scrittura non superi quella precedente */
+    private final Object flushLock = new Object();
+
+    private ScheduledFuture<?> scheduledFlush;
+    private long firstPendingAt;
+
+    /**
+     * Crea una coda che scrive le modifiche dopo il periodo di quiete indicato.
+     *
+     * @param userDAO DAO con cui scrivere le modifiche
+     * @param quietPeriod periodo senza nuove modifiche dopo cui scrivere quelle in coda
+     */
+    public WriteBehindQueue(UserDAO userDAO, Duration quietPeriod) {
+        this.userDAO = userDAO;
+        this.quietPeriodNanos = quietPeriod.toNanos();
+    }
+
+    /**
+     * Mette in coda la posizione attuale di un ToDo, sostituendo quella eventualmente già in coda.
+     *
+     * @param toDo il ToDo spostato
+     */
+    public void enqueuePosition(ToDo toDo) {
+        enqueue(new ToDoPlacement(toDo.getId(), toDo.getPosition()));
+    }
+
+    /**
+     * Mette in coda una modifica, sostituendo quella eventualmente già in coda per lo stesso ToDo.
+     *
+     * @param placement la modifica da scrivere
+     */
+    public synchronized void enqueue(ToDoPlacement placement) {
+        long now = System.nanoTime();
+        if (pending.isEmpty()) {
+            firstPendingAt = now;
+        }
+        pending.put(placement.getToDoId(), placement);
+
+        if (scheduledFlush != null) {
+            if (now - firstPendingAt >= quietPeriodNanos * MAX_DELAY_FACTOR) {
+                // Modifiche continue: non rimanda oltre la scrittura già pianificata
+                return;
+            }
+            scheduledFlush.cancel(false);
+        }
+        if (!executor.isShutdown()) {
+            scheduledFlush = executor.schedule(this::flushQuietly, quietPeriodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return numero di ToDo con modifiche in attesa di scrittura
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Scrive subito tutte le modifiche in coda con un unico batch.
+     *
+     * @throws SQLException se la scrittura fallisce; le modifiche restano in coda
+     */
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            Map<UUID, ToDoPlacement> batch;
+            synchronized (this) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            List<ToDoPlacement> placements = new ArrayList<>(batch.values());
+            try {
+                userDAO.updateToDoPlacements(placements);
+                System.out.println("DEBUG: WriteBehindQueue flushed " + placements.size() + " ToDo positions");
+            } catch (SQLException e) {
+                requeue(batch);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Scrive le modifiche ancora in coda e arresta il thread della coda.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("WARN: WriteBehindQueue could not write pending ToDo positions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rimette in coda le modifiche di una scrittura fallita, senza sovrascrivere quelle arrivate nel frattempo.
+     */
+    private synchronized void requeue(Map<UUID, ToDoPlacement> failed) {
+        Map<UUID, ToDoPlacement> merged = new LinkedHashMap<>(failed);
+        merged.putAll(pending);
+        if (pending.isEmpty()) {
+            firstPendingAt = System.nanoTime();
+        }
+        pending = merged;
+        if (scheduledFlush == null && !executor.isShutdown()) {
+            scheduledFlush = executor.schedule(this::flushQuietly, quietPeriodNanos * MAX_DELAY_FACTOR, TimeUnit.NANOSECONDS);
+        }
+    }
+}
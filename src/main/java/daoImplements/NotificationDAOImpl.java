@@ -0,0 +1,101 @@
+package dao;
+
+import db.DatabaseConnection;
+import notification.DueNotification;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Implementazione concreta del Data Access Object per le notifiche di scadenza.
+ *
+ * <p>Le ricerche usano l'indice su {@code todos (due_date, id)} con paginazione per chiave,
+ * così che ogni pagina parta dall'ultimo elemento letto senza usare OFFSET; i ToDo già notificati
+ * sono esclusi direttamente nella query tramite la tabella {@code todo_notifications}.</p>
+ */
+public class NotificationDAOImpl implements NotificationDAO {
+
+    private static final String SELECT_DUE = "SELECT t.id, t.title, t.due_date, t.owner_username, " +
+            "ARRAY(SELECT s.shared_with_username FROM shared_todos s WHERE s.todo_id = t.id ORDER BY s.shared_with_username) AS shared_with " +
+            "FROM todos t " +
+            "WHERE t.due_date BETWEEN ? AND ? " +
+            "AND COALESCE(t.status, '') NOT IN ('Complete', 'Completo') " +
+            "AND NOT EXISTS (SELECT 1 FROM todo_notifications n WHERE n.todo_id = t.id AND n.due_date = t.due_date) ";
+
+    private static final String FIRST_PAGE = SELECT_DUE +
+            "ORDER BY t.due_date, t.id LIMIT ?";
+
+    private static final String NEXT_PAGE = SELECT_DUE +
+            "AND (t.due_date, t.id) > (?, ?) " +
+            "ORDER BY t.due_date, t.id LIMIT ?";
+
+    /**
+     * Costruisce una nuova istanza di NotificationDAOImpl inizializzando il pool di connessioni al database.
+     *
+     * @throws SQLException se si verifica un errore durante l'apertura delle connessioni al database
+     */
+    public NotificationDAOImpl() throws SQLException {
+        DatabaseConnection.getPool();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DueNotification> findDueNotNotified(LocalDate from, LocalDate to, LocalDate afterDueDate, UUID afterId, int limit) throws SQLException {
+        boolean firstPage = afterDueDate == null || afterId == null;
+        List<DueNotification> notifications = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(firstPage ? FIRST_PAGE : NEXT_PAGE)) {
+            int index = 1;
+            pstmt.setDate(index++, Date.valueOf(from));
+            pstmt.setDate(index++, Date.valueOf(to));
+            if (!firstPage) {
+                pstmt.setDate(index++, Date.valueOf(afterDueDate));
+                pstmt.setObject(index++, afterId);
+            }
+            pstmt.setInt(index, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String owner = rs.getString("owner_username");
+                    List<String> recipients = new ArrayList<>();
+                    recipients.add(owner);
+                    Array sharedWith = rs.getArray("shared_with");
+                    if (sharedWith != null) {
+                        recipients.addAll(Arrays.asList((String[]) sharedWith.getArray()));
+                    }
+                    notifications.add(new DueNotification(
+                            (UUID) rs.getObject("id"),
+                            rs.getString("title"),
+                            rs.getDate("due_date").toLocalDate(),
+                            owner,
+                            recipients
+                    ));
+                }
+            }
+        }
+        return notifications;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markNotified(Collection<DueNotification> notifications) throws SQLException {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO todo_notifications (todo_id, due_date) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (DueNotification notification : notifications) {
+                pstmt.setObject(1, notification.getToDoId());
+                pstmt.setDate(2, Date.valueOf(notification.getDueDate()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package dao;
 
 import models.board.Board;
+import models.ActivityChanges;
 import models.ToDo;
+import models.ToDoDetailsSource;
 import models.User;
 import models.board.BoardName;
 import db.DatabaseConnection;
@@ -17,18 +19,34 @@ import java.util.*;
 public class UserDAOImpl implements UserDAO {
 
     /**
-     * Connessione al database utilizzata per tutte le operazioni di persistenza.
-     * Viene inizializzata tramite il singleton DatabaseConnection.
+     * Righe lette dal database per ogni round-trip nelle query lette in streaming
+     * (proprietà di sistema {@code todo.fetchSize})
      */
-    private Connection connection;
+    private static final int FETCH_SIZE = Integer.getInteger("todo.fetchSize", 500);
+
+    /** Utenti con cui sono condivisi i todo letti da questo DAO, uno solo per username */
+    private final UserRegistry userRegistry = new UserRegistry();
+
+    /** Sorgente dei dettagli condivisa da tutti i todo caricati in forma ridotta */
+    private final ToDoDetailsSource detailsSource = this::loadToDoDetails;
 
     /**
-     * Costruisce una nuova istanza di UserDAOImpl inizializzando la connessione al database.
+     * Costruisce una nuova istanza di UserDAOImpl inizializzando il pool di connessioni al database.
+     * Ogni operazione prende in prestito una connessione dal pool e la restituisce al termine,
+     * così che più thread possano accedere al database in parallelo.
      *
-     * @throws SQLException se si verifica un errore durante l'ottenimento della connessione al database
+     * @throws SQLException se si verifica un errore durante l'apertura delle connessioni al database
      */
     public UserDAOImpl() throws SQLException {
-        this.connection = DatabaseConnection.getInstance();
+        DatabaseConnection.getPool();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UnitOfWork beginUnitOfWork() throws SQLException {
+        return UnitOfWork.begin();
     }
 
     /**
@@ -45,12 +63,14 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public boolean saveUser(User user) throws SQLException {
         String sql = "INSERT INTO users (id, username, password_hash) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, user.getId());
             pstmt.setString(2, user.getUsername());
             pstmt.setString(3, user.getHashedPassword());
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
+                userRegistry.invalidate(user.getUsername());
                 System.out.println("DEBUG: User '" + user.getUsername() + "' saved to DB with ID: " + user.getId());
                 return true;
             }
@@ -79,7 +99,8 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public void saveBoard(Board board, UUID userId) throws SQLException {
         String sql = "INSERT INTO boards (name, color, user_id) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, board.getName().getDisplayName());
             pstmt.setString(2, board.getColor());
             pstmt.setObject(3, userId);
@@ -99,27 +120,22 @@ public class UserDAOImpl implements UserDAO {
     /**
      * Aggiorna le proprietà di una board esistente nel database.
      *
-     * <p>L'operazione viene eseguita solo se l'utente proprietario esiste nel database
-     * e corrisponde al proprietario specificato nella board.</p>
+     * <p>L'operazione viene eseguita solo se la board appartiene all'utente specificato come
+     * proprietario; l'ID del proprietario viene risolto nella stessa istruzione, senza una query separata.</p>
      *
      * @param board la board con le proprietà aggiornate da persistere
-     * @throws SQLException se si verifica un errore durante l'aggiornamento o se il proprietario non esiste
+     * @throws SQLException se si verifica un errore durante l'aggiornamento
      * @see Board
      */
     @Override
     public void updateBoard(Board board) throws SQLException {
-        String sql = "UPDATE boards SET name = ?, color = ? WHERE id = ? AND user_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        String sql = "UPDATE boards SET name = ?, color = ? WHERE id = ? AND user_id = (SELECT id FROM users WHERE username = ?)";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, board.getName().getDisplayName());
             pstmt.setString(2, board.getColor());
             pstmt.setInt(3, board.getId());
-
-            Optional<User> ownerUser = getUserByUsername(board.getOwner());
-            if (ownerUser.isPresent()) {
-                pstmt.setObject(4, ownerUser.get().getId());
-            } else {
-                throw new SQLException("Cannot update board: Owner user '" + board.getOwner() + "' not found.");
-            }
+            pstmt.setString(4, board.getOwner());
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
@@ -142,33 +158,46 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public Optional<User> getUserByUsername(String username) throws SQLException {
         String sql = "SELECT id, username, password_hash FROM users WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                User user = new User(
-                        rs.getString("username"),
-                        rs.getString("password_hash"),
-                        null,
-                        (UUID) rs.getObject("id")
-                );
-                return Optional.of(user);
+                return Optional.of(readUser(rs));
             }
         }
         return Optional.empty();
     }
 
+    /**
+     * Costruisce un nuovo utente dalla riga corrente di un {@link ResultSet}
+     * con le colonne {@code id}, {@code username} e {@code password_hash}.
+     * Ogni lettura produce un oggetto distinto, che riflette la riga attuale.
+     */
+    private static User readUser(ResultSet rs) throws SQLException {
+        return new User(
+                rs.getString("username"),
+                rs.getString("password_hash"),
+                null,
+                (UUID) rs.getObject("id")
+        );
+    }
+
     /**
      * Carica tutte le board e i todo associati a un utente, inclusi quelli condivisi.
      *
-     * <p>Questo metodo esegue un'operazione complessa che:</p>
-     * <ul>
-     *   <li>Pulisce le board esistenti dell'utente</li>
-     *   <li>Carica tutte le board di proprietà dell'utente</li>
-     *   <li>Per ogni board, carica tutti i todo di proprietà dell'utente</li>
-     *   <li>Carica tutti i todo condivisi con l'utente</li>
-     *   <li>Per ogni todo, carica le relative attività e utenti con cui è condiviso</li>
-     * </ul>
+     * <p>Il caricamento avviene con un numero fisso di query set-based, indipendente
+     * dalla quantità di dati dell'utente:</p>
+     * <ol>
+     *   <li>le board di proprietà dell'utente</li>
+     *   <li>i todo di proprietà dell'utente su tutte le sue board ({@code board_id = ANY(?)})</li>
+     *   <li>i todo condivisi con l'utente, con il nome della board originale</li>
+     * </ol>
+     * <p>Il grafo {@code User}/{@code Board}/{@code ToDo} viene poi assemblato in memoria.
+     * I todo sono caricati in forma ridotta: descrizione, attività e utenti condivisi
+     * vengono letti solo al primo accesso, con {@link #loadToDoDetails(ToDo)}.
+     * Le query dei todo sono lette in streaming con {@link #streamQuery(Connection, PreparedStatement, RowHandler)},
+     * così che anche per account molto grandi il driver non tenga in memoria l'intero risultato.</p>
      *
      * @param user l'utente per cui caricare board e todo; se null, il metodo termina senza operazioni
      * @throws SQLException se si verifica un errore durante il caricamento dei dati
@@ -184,7 +213,64 @@ public class UserDAOImpl implements UserDAO {
 
         user.clearBoards();
 
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            loadUserBoardsAndToDos(connection, user);
+        }
+    }
+
+    /**
+     * Esegue il caricamento di board e todo di un utente su una connessione già ottenuta.
+     *
+     * @param connection la connessione su cui eseguire le query
+     * @param user l'utente per cui caricare board e todo
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    private void loadUserBoardsAndToDos(Connection connection, User user) throws SQLException {
+
         // Step 1: Load all boards owned by the current user
+        Map<Integer, Board> boardsById = loadBoards(connection, user);
+
+        // Step 2: Load the owned todos of every board in a single query
+        Map<UUID, ToDo> loadedToDos = new LinkedHashMap<>();
+        Map<UUID, Board> targetBoards = new HashMap<>();
+        if (!boardsById.isEmpty()) {
+            String todoSql = "SELECT id, title, status, due_date, created_date, position, owner_username, url, image, color, board_id " +
+                    "FROM todos WHERE board_id = ANY(?) AND owner_username = ? ORDER BY board_id, position";
+            try (PreparedStatement pstmtTodo = connection.prepareStatement(todoSql)) {
+                pstmtTodo.setArray(1, connection.createArrayOf("integer", boardsById.keySet().toArray()));
+                pstmtTodo.setString(2, user.getUsername());
+                ToDoRowMapper toDoMapper = new ToDoRowMapper("board_id");
+                streamQuery(connection, pstmtTodo, rsTodos -> {
+                    ToDo toDo = toDoMapper.map(rsTodos);
+                    loadedToDos.put(toDo.getId(), toDo);
+                    targetBoards.put(toDo.getId(), boardsById.get(rsTodos.getInt(toDoMapper.getExtraColumnIndex(0))));
+                });
+            }
+        }
+
+        // Step 3: Load the todos shared with the user, placed on the board with the same name
+        loadSharedToDos(connection, user, loadedToDos, targetBoards);
+
+        // Descrizioni, attività e condivisioni vengono caricate solo quando servono
+        deferDetails(loadedToDos);
+
+        // Assemblaggio del grafo in memoria
+        for (ToDo toDo : loadedToDos.values()) {
+            targetBoards.get(toDo.getId()).addExistingTodo(toDo);
+        }
+        System.out.println("DEBUG: UserDAOImpl loaded " + loadedToDos.size() + " ToDo(s) for user '" + user.getUsername() + "'.");
+    }
+
+    /**
+     * Carica le board di proprietà dell'utente e le aggiunge all'utente.
+     *
+     * @param connection la connessione su cui eseguire la query
+     * @param user l'utente di cui caricare le board
+     * @return le board caricate, per ID
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    private Map<Integer, Board> loadBoards(Connection connection, User user) throws SQLException {
+        Map<Integer, Board> boardsById = new HashMap<>();
         String boardSql = "SELECT id, name, color FROM boards WHERE user_id = ?";
         try (PreparedStatement pstmtBoard = connection.prepareStatement(boardSql)) {
             pstmtBoard.setObject(1, user.getId());
@@ -206,125 +292,298 @@ public class UserDAOImpl implements UserDAO {
                         rsBoards.getString("color")
                 );
                 user.addBoard(board);
+                boardsById.put(board.getId(), board);
                 System.out.println("DEBUG: UserDAOImpl loaded board '" + boardDisplayName + "' (ID: " + board.getId() + ") for user '" + user.getUsername() + "'.");
             }
         }
+        return boardsById;
+    }
 
-        for (Board board : user.getBoardList()) {
-
-            String todoSql = "SELECT id, title, description, status, due_date, created_date, position, owner_username, url, image, color FROM todos WHERE board_id = ? AND owner_username = ?";
-            try (PreparedStatement pstmtTodo = connection.prepareStatement(todoSql)) {
-                pstmtTodo.setInt(1, board.getId());
-                pstmtTodo.setString(2, user.getUsername());
-                ResultSet rsTodos = pstmtTodo.executeQuery();
-                while (rsTodos.next()) {
-                    ToDo toDo = new ToDo(
-                            (UUID) rsTodos.getObject("id"),
-                            rsTodos.getString("title"),
-                            rsTodos.getString("owner_username")
-                    );
-                    toDo.setDescription(rsTodos.getString("description"));
-                    toDo.setStatus(rsTodos.getString("status"));
-                    java.sql.Date sqlDueDateOwned = rsTodos.getDate("due_date");
-                    toDo.setDueDate(sqlDueDateOwned != null ? sqlDueDateOwned.toLocalDate() : null);
-                    toDo.setCreatedDate(rsTodos.getDate("created_date").toLocalDate());
-                    toDo.setPosition(rsTodos.getInt("position"));
-                    toDo.setUrl(rsTodos.getString("url"));   // Load URL
-                    toDo.setImage(rsTodos.getString("image")); // Load Image
-                    toDo.setColor(rsTodos.getString("color")); // Load Color
-
-                    String activitySql = "SELECT activity_title, completed FROM activities WHERE todo_id = ?";
-                    try (PreparedStatement pstmtActivity = connection.prepareStatement(activitySql)) {
-                        pstmtActivity.setObject(1, toDo.getId());
-                        ResultSet rsActivities = pstmtActivity.executeQuery();
-                        Map<String, Boolean> activitiesMap = new HashMap<>();
-                        while (rsActivities.next()) {
-                            activitiesMap.put(rsActivities.getString("activity_title"), rsActivities.getBoolean("completed"));
-                        }
-                        toDo.setActivityList(activitiesMap);
-                    }
-
-                    List<String> sharedUsernames = getSharedUsernamesForToDo(toDo.getId().toString());
-                    for (String sharedUsername : sharedUsernames) {
-                        Optional<User> sharedUser = getUserByUsername(sharedUsername);
-                        sharedUser.ifPresent(toDo::addSharedUser);
-                    }
-                    board.addExistingTodo(toDo);
-                    System.out.println("DEBUG: UserDAOImpl loaded OWNED ToDo '" + toDo.getTitle() + "' for board '" + board.getName().getDisplayName() + "'.");
-                }
-            }
-        }
-
-        String sharedTodoSql = "SELECT t.id, t.title, t.description, t.status, t.due_date, t.created_date, t.position, t.owner_username, t.url, t.image, t.color, " +
+    /**
+     * Carica i todo condivisi con l'utente, assegnandoli alla sua board con lo stesso nome
+     * di quella originale. I todo già presenti in {@code loadedToDos} vengono ignorati.
+     *
+     * @param connection la connessione su cui eseguire la query
+     * @param user l'utente destinatario delle condivisioni, con le board già caricate
+     * @param loadedToDos i todo caricati, per ID, a cui aggiungere quelli condivisi
+     * @param targetBoards la board di destinazione di ciascun todo, per ID
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    private void loadSharedToDos(Connection connection, User user, Map<UUID, ToDo> loadedToDos, Map<UUID, Board> targetBoards) throws SQLException {
+        String sharedTodoSql = "SELECT t.id, t.title, t.status, t.due_date, t.created_date, t.position, t.owner_username, t.url, t.image, t.color, " +
                 "b_orig.name AS original_board_name " +
                 "FROM todos t " +
                 "JOIN shared_todos st ON t.id = st.todo_id " +
                 "JOIN boards b_orig ON t.board_id = b_orig.id " +
-                "WHERE st.shared_with_username = ?";
+                "WHERE st.shared_with_username = ? " +
+                "ORDER BY t.position";
 
         try (PreparedStatement pstmtSharedTodo = connection.prepareStatement(sharedTodoSql)) {
             pstmtSharedTodo.setString(1, user.getUsername());
-            ResultSet rsSharedTodos = pstmtSharedTodo.executeQuery();
-            while (rsSharedTodos.next()) {
-                ToDo sharedToDo = new ToDo(
-                        (UUID) rsSharedTodos.getObject("id"),
-                        rsSharedTodos.getString("title"),
-                        rsSharedTodos.getString("owner_username")
-                );
-                sharedToDo.setDescription(rsSharedTodos.getString("description"));
-                sharedToDo.setStatus(rsSharedTodos.getString("status"));
-                java.sql.Date sqlDueDateShared = rsSharedTodos.getDate("due_date");
-                sharedToDo.setDueDate(sqlDueDateShared != null ? sqlDueDateShared.toLocalDate() : null);
-                sharedToDo.setCreatedDate(rsSharedTodos.getDate("created_date").toLocalDate());
-                sharedToDo.setPosition(rsSharedTodos.getInt("position"));
-                sharedToDo.setUrl(rsSharedTodos.getString("url"));     // Load URL
-                sharedToDo.setImage(rsSharedTodos.getString("image")); // Load Image
-                sharedToDo.setColor(rsSharedTodos.getString("color")); // Load Color
-
-                String activitySqlShared = "SELECT activity_title, completed FROM activities WHERE todo_id = ?";
-                try (PreparedStatement pstmtActivityShared = connection.prepareStatement(activitySqlShared)) {
-                    pstmtActivityShared.setObject(1, sharedToDo.getId());
-                    ResultSet rsActivitiesShared = pstmtActivityShared.executeQuery();
-                    Map<String, Boolean> activitiesMapShared = new HashMap<>();
-                    while (rsActivitiesShared.next()) {
-                        activitiesMapShared.put(rsActivitiesShared.getString("activity_title"), rsActivitiesShared.getBoolean("completed"));
-                    }
-                    sharedToDo.setActivityList(activitiesMapShared);
-                }
+            ToDoRowMapper toDoMapper = new ToDoRowMapper("original_board_name");
+            streamQuery(connection, pstmtSharedTodo, rsSharedTodos -> {
+                ToDo sharedToDo = toDoMapper.map(rsSharedTodos);
 
-                List<String> sharedUsernamesForSharedToDo = getSharedUsernamesForToDo(sharedToDo.getId().toString());
-                for (String sharedUsername : sharedUsernamesForSharedToDo) {
-                    Optional<User> sharedUser = getUserByUsername(sharedUsername);
-                    sharedUser.ifPresent(sharedToDo::addSharedUser);
-                }
-
-                Optional<User> currentUserOptional = getUserByUsername(user.getUsername());
-                currentUserOptional.ifPresent(sharedToDo::addSharedUser);
-
-                String originalBoardNameStr = rsSharedTodos.getString("original_board_name");
+                String originalBoardNameStr = rsSharedTodos.getString(toDoMapper.getExtraColumnIndex(0));
                 BoardName originalBoardName = null;
                 try {
                     originalBoardName = BoardName.fromDisplayName(originalBoardNameStr);
                 } catch (IllegalArgumentException e) {
                     System.err.println("ERROR: Il nome della board originale '" + originalBoardNameStr + "' per il ToDo condiviso '" + sharedToDo.getTitle() + "' non è un valore valido per BoardName. Ignoro questo ToDo condiviso per il ricevente '" + user.getUsername() + "'.");
-                    continue;
+                    return;
                 }
 
-                Board targetBoard = null;
-                for (Board b : user.getBoardList()) {
-                    if (b.getName().equals(originalBoardName)) {
-                        targetBoard = b;
-                        break;
-                    }
+                Board targetBoard = user.getBoard(originalBoardName);
+                if (targetBoard == null) {
+                    System.out.println("WARN: Il ToDo condiviso '" + sharedToDo.getTitle() + "' (Proprietario: " + sharedToDo.getOwner() + ") non è stato assegnato a una board esistente con il nome '" + originalBoardNameStr + "' per il ricevente '" + user.getUsername() + "'.");
+                    return;
                 }
+                if (!loadedToDos.containsKey(sharedToDo.getId())) {
+                    loadedToDos.put(sharedToDo.getId(), sharedToDo);
+                    targetBoards.put(sharedToDo.getId(), targetBoard);
+                }
+            });
+        }
+    }
 
-                if (targetBoard != null) {
-                    targetBoard.addExistingTodo(sharedToDo);
-                    System.out.println("DEBUG: UserDAOImpl ha caricato il ToDo CONDIVISO '" + sharedToDo.getTitle() + "' (Proprietario: " + sharedToDo.getOwner() + ") per la board del ricevente '" + targetBoard.getName().getDisplayName() + "' (ID: " + targetBoard.getId() + ", condiviso con '" + user.getUsername() + "').");
-                } else {
-                    System.out.println("WARN: Il ToDo condiviso '" + sharedToDo.getTitle() + "' (Proprietario: " + sharedToDo.getOwner() + ") non è stato assegnato a una board esistente con il nome '" + originalBoardNameStr + "' per il ricevente '" + user.getUsername() + "'.");
+    /**
+     * Carica in modo differito board e todo di un utente.
+     *
+     * <p>Vengono caricati subito le board e i todo condivisi con l'utente; i todo di cui l'utente
+     * è proprietario vengono invece letti una pagina alla volta, quando la board li richiede
+     * con {@link Board#loadNextPage()}. Le pagine sono lette per chiave (posizione, ID) usando
+     * l'indice {@code todos_board_position_id_idx}, così che il costo di ogni pagina non dipenda
+     * da quante pagine sono già state lette.</p>
+     *
+     * @param user l'utente per cui caricare board e todo; se null, il metodo termina senza operazioni
+     * @param pageSize numero di todo per pagina
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    @Override
+    public void loadUserBoardsLazily(User user, int pageSize) throws SQLException {
+        if (user == null) {
+            return;
+        }
+
+        user.clearBoards();
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            Map<Integer, Board> boardsById = loadBoards(connection, user);
+            Map<UUID, ToDo> sharedToDos = new LinkedHashMap<>();
+            Map<UUID, Board> targetBoards = new HashMap<>();
+            loadSharedToDos(connection, user, sharedToDos, targetBoards);
+            deferDetails(sharedToDos);
+            for (ToDo toDo : sharedToDos.values()) {
+                targetBoards.get(toDo.getId()).addExistingTodo(toDo);
+            }
+
+            String username = user.getUsername();
+            for (Board board : boardsById.values()) {
+                int boardId = board.getId();
+                board.setPageSource((afterPosition, afterId, limit) -> loadToDoPage(boardId, username, afterPosition, afterId, limit), pageSize);
+            }
+        }
+    }
+
+    /**
+     * Legge una pagina dei todo di cui l'utente è proprietario in una board.
+     *
+     * @param boardId l'ID della board
+     * @param username il proprietario dei todo
+     * @param afterPosition posizione dell'ultimo todo della pagina precedente
+     * @param afterId ID dell'ultimo todo della pagina precedente, null per la prima pagina
+     * @param limit numero massimo di todo da leggere
+     * @return i todo della pagina, ordinati per posizione e ID
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    private List<ToDo> loadToDoPage(int boardId, String username, int afterPosition, UUID afterId, int limit) throws SQLException {
+        String pageSql = "SELECT id, title, status, due_date, created_date, position, owner_username, url, image, color " +
+                "FROM todos WHERE board_id = ? AND owner_username = ? " +
+                (afterId != null ? "AND (position, id) > (?, ?) " : "") +
+                "ORDER BY position, id LIMIT ?";
+        Map<UUID, ToDo> page = new LinkedHashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmtPage = connection.prepareStatement(pageSql)) {
+            int index = 1;
+            pstmtPage.setInt(index++, boardId);
+            pstmtPage.setString(index++, username);
+            if (afterId != null) {
+                pstmtPage.setInt(index++, afterPosition);
+                pstmtPage.setObject(index++, afterId);
+            }
+            pstmtPage.setInt(index, limit);
+            ResultSet rsPage = pstmtPage.executeQuery();
+            ToDoRowMapper toDoMapper = new ToDoRowMapper();
+            while (rsPage.next()) {
+                ToDo toDo = toDoMapper.map(rsPage);
+                page.put(toDo.getId(), toDo);
+            }
+        }
+        deferDetails(page);
+        System.out.println("DEBUG: UserDAOImpl loaded a page of " + page.size() + " ToDo(s) from board ID " + boardId + ".");
+        return new ArrayList<>(page.values());
+    }
+
+    /**
+     * Segna i todo appena letti in forma ridotta come allineati al database;
+     * i loro dettagli verranno caricati da {@link #loadToDoDetails(ToDo)} al primo accesso.
+     *
+     * @param toDos i todo letti, per ID
+     */
+    private void deferDetails(Map<UUID, ToDo> toDos) {
+        for (ToDo toDo : toDos.values()) {
+            toDo.setDetailsSource(detailsSource);
+            toDo.markPersisted();
+        }
+    }
+
+    /**
+     * Carica descrizione, attività e utenti condivisi di un todo caricato in forma ridotta.
+     *
+     * @param toDo il todo di cui caricare i dettagli
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    @Override
+    public void loadToDoDetails(ToDo toDo) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            loadToDoDetails(connection, Map.of(toDo.getId(), toDo));
+        }
+    }
+
+    /**
+     * Carica i dettagli di più todo con una query per ciascun tipo di dettaglio,
+     * indipendentemente dal numero di todo, e li applica senza segnarli come modificati.
+     *
+     * @param connection la connessione su cui eseguire le query
+     * @param toDos i todo di cui caricare i dettagli, per ID
+     * @throws SQLException se si verifica un errore durante il caricamento dei dati
+     */
+    private void loadToDoDetails(Connection connection, Map<UUID, ToDo> toDos) throws SQLException {
+        if (toDos.isEmpty()) {
+            return;
+        }
+        Array toDoIds = connection.createArrayOf("uuid", toDos.keySet().toArray());
+
+        // Load the descriptions of all the todos
+        Map<UUID, String> descriptions = new HashMap<>();
+        String descriptionSql = "SELECT id, description FROM todos WHERE id = ANY(?)";
+        try (PreparedStatement pstmtDescription = connection.prepareStatement(descriptionSql)) {
+            pstmtDescription.setArray(1, toDoIds);
+            ResultSet rsDescriptions = pstmtDescription.executeQuery();
+            while (rsDescriptions.next()) {
+                descriptions.put((UUID) rsDescriptions.getObject("id"), rsDescriptions.getString("description"));
+            }
+        }
+
+        // Load the activities of all the todos
+        Map<UUID, Map<String, Boolean>> activitiesByToDo = new HashMap<>();
+        String activitySql = "SELECT todo_id, activity_title, completed FROM activities WHERE todo_id = ANY(?)";
+        try (PreparedStatement pstmtActivity = connection.prepareStatement(activitySql)) {
+            pstmtActivity.setArray(1, toDoIds);
+            ResultSet rsActivities = pstmtActivity.executeQuery();
+            while (rsActivities.next()) {
+                activitiesByToDo.computeIfAbsent((UUID) rsActivities.getObject("todo_id"), id -> new HashMap<>())
+                        .put(rsActivities.getString("activity_title"), rsActivities.getBoolean("completed"));
+            }
+        }
+
+        // Load the sharing lists of all the todos, resolving each sharee to a single User
+        Map<UUID, List<String>> sharedUsernamesByToDo = new HashMap<>();
+        Set<String> sharedUsernames = new HashSet<>();
+        String sharedUsersSql = "SELECT todo_id, shared_with_username FROM shared_todos WHERE todo_id = ANY(?)";
+        try (PreparedStatement pstmtSharedUsers = connection.prepareStatement(sharedUsersSql)) {
+            pstmtSharedUsers.setArray(1, toDoIds);
+            ResultSet rsSharedUsers = pstmtSharedUsers.executeQuery();
+            while (rsSharedUsers.next()) {
+                String username = rsSharedUsers.getString("shared_with_username");
+                sharedUsernamesByToDo.computeIfAbsent((UUID) rsSharedUsers.getObject("todo_id"), id -> new ArrayList<>()).add(username);
+                sharedUsernames.add(username);
+            }
+        }
+        Map<String, User> sharees = userRegistry.resolveAll(connection, sharedUsernames);
+        Map<UUID, List<User>> usersByToDo = new HashMap<>();
+        for (Map.Entry<UUID, List<String>> entry : sharedUsernamesByToDo.entrySet()) {
+            List<User> users = new ArrayList<>(entry.getValue().size());
+            for (String username : entry.getValue()) {
+                User sharee = sharees.get(username);
+                if (sharee != null) {
+                    users.add(sharee);
                 }
             }
+            usersByToDo.put(entry.getKey(), users);
+        }
+
+        for (ToDo toDo : toDos.values()) {
+            toDo.applyDetails(
+                    descriptions.get(toDo.getId()),
+                    activitiesByToDo.getOrDefault(toDo.getId(), Map.of()),
+                    usersByToDo.getOrDefault(toDo.getId(), List.of())
+            );
+        }
+    }
+
+    /**
+     * Esegue una query leggendone le righe in streaming, {@link #FETCH_SIZE} alla volta,
+     * e le passa una per una al {@link RowHandler}.
+     *
+     * <p>Il driver PostgreSQL legge con un cursore, invece di caricare in memoria l'intero
+     * risultato prima di restituire la prima riga, solo con un result set forward-only, una
+     * fetch size positiva e l'autocommit disattivato. Se la connessione non appartiene già a una
+     * transazione, la query viene quindi eseguita in una transazione di sola lettura aperta e
+     * chiusa da questo metodo; all'interno di una {@link UnitOfWork} viene usata la sua transazione.</p>
+     *
+     * @param connection la connessione su cui è stato preparato lo statement
+     * @param pstmt lo statement, forward-only, con i parametri già impostati
+     * @param handler il consumatore di ciascuna riga
+     * @throws SQLException se si verifica un errore durante la query o l'elaborazione di una riga
+     */
+    private static void streamQuery(Connection connection, PreparedStatement pstmt, RowHandler handler) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        Throwable primary = null;
+        try {
+            pstmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handleRow(rs);
+                }
+            }
+        } catch (Throwable t) {
+            primary = t;
+            throw t;
+        } finally {
+            if (autoCommit) {
+                try {
+                    // The transaction only read rows: ending it with a rollback is always safe, even after an error
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    discardConnection(connection, e);
+                    if (primary == null) {
+                        throw e;
+                    }
+                    // The query failure is the one the caller must see
+                    primary.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Interrompe una connessione rimasta in uno stato sconosciuto, così che il pool la scarti
+     * alla restituzione invece di prestarla di nuovo.
+     *
+     * @param connection la connessione da interrompere
+     * @param failure l'errore che ha lasciato la connessione in stato sconosciuto
+     */
+    private static void discardConnection(Connection connection, SQLException failure) {
+        System.err.println("WARN: Discarding database connection after failing to end a streaming query: " + failure.getMessage());
+        try {
+            connection.abort(Runnable::run);
+        } catch (SQLException | RuntimeException e) {
+            failure.addSuppressed(e);
         }
     }
 
@@ -340,7 +599,8 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public int getBoardId(BoardName boardName, String username) throws SQLException {
         String sql = "SELECT b.id FROM boards b JOIN users u ON b.user_id = u.id WHERE b.name = ? AND u.username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, boardName.getDisplayName());
             pstmt.setString(2, username);
             ResultSet rs = pstmt.executeQuery();
@@ -351,6 +611,52 @@ public class UserDAOImpl implements UserDAO {
         return -1;
     }
 
+    /**
+     * Restituisce la posizione più alta tra i todo di una board, letta dall'indice su board e posizione
+     * senza caricare i todo.
+     *
+     * @param boardId l'ID della board
+     * @return la posizione dell'ultimo todo della board, 0 se la board è vuota
+     * @throws SQLException se si verifica un errore durante la query
+     */
+    @Override
+    public int getMaxToDoPosition(int boardId) throws SQLException {
+        String sql = "SELECT COALESCE(MAX(position), 0) FROM todos WHERE board_id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, boardId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Verifica se una board contiene già un todo con lo stesso titolo e proprietario,
+     * senza caricare i todo della board.
+     *
+     * @param boardId l'ID della board
+     * @param title il titolo del todo
+     * @param owner lo username del proprietario
+     * @return true se il todo esiste
+     * @throws SQLException se si verifica un errore durante la query
+     */
+    @Override
+    public boolean existsToDo(int boardId, String title, String owner) throws SQLException {
+        String sql = "SELECT EXISTS (SELECT 1 FROM todos WHERE board_id = ? AND title = ? AND owner_username = ?)";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, boardId);
+            pstmt.setString(2, title);
+            pstmt.setString(3, owner);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
     /**
      * Salva un nuovo todo nel database associandolo a una board specifica.
      *
@@ -366,7 +672,9 @@ public class UserDAOImpl implements UserDAO {
     public void saveToDo(ToDo toDo, int boardId) throws SQLException {
 
         String sql = "INSERT INTO todos (id, title, description, status, due_date, created_date, position, owner_username, board_id, url, image, color) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, toDo.getId());
             pstmt.setString(2, toDo.getTitle());
             pstmt.setString(3, toDo.getDescription());
@@ -381,15 +689,18 @@ public class UserDAOImpl implements UserDAO {
             pstmt.setString(12, toDo.getColor());
             pstmt.executeUpdate();
 
-            saveActivities(toDo.getId().toString(), toDo.getActivityList());
+            saveActivities(connection, toDo.getId().toString(), toDo.getActivityList());
+            unitOfWork.afterCommit(toDo::markPersisted);
+            unitOfWork.commit();
         }
     }
 
     /**
-     * Aggiorna un todo esistente nel database con nuovi valori per tutte le sue proprietà.
+     * Aggiorna un todo esistente nel database salvando solo i campi modificati dall'ultimo salvataggio.
+     * Se non ci sono modifiche non viene eseguita alcuna query.
      *
-     * <p>Il metodo sostituisce completamente le attività esistenti del todo
-     * con quelle fornite nell'oggetto todo aggiornato.</p>
+     * <p>Delle attività vengono salvate solo le differenze rispetto all'ultimo stato persistito
+     * (aggiunte, rimozioni e cambi di stato), nella stessa transazione dell'aggiornamento.</p>
      *
      * @param toDo il todo con i valori aggiornati
      * @param boardId l'ID della board di appartenenza del todo
@@ -398,27 +709,80 @@ public class UserDAOImpl implements UserDAO {
      */
     @Override
     public void updateToDo(ToDo toDo, int boardId) throws SQLException {
+        Set<ToDo.Field> dirtyFields = toDo.getDirtyFields();
+        ActivityChanges activityChanges = toDo.getActivityChanges();
+        if (dirtyFields.isEmpty() && activityChanges.isEmpty()) {
+            System.out.println("DEBUG: UserDAOImpl skipped update of unchanged ToDo '" + toDo.getTitle() + "'.");
+            return;
+        }
 
-        String sql = "UPDATE todos SET title = ?, description = ?, status = ?, due_date = ?, position = ?, owner_username = ?, url = ?, image = ?, color = ? WHERE id = ? AND board_id = ?";
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection connection = DatabaseConnection.getConnection()) {
+            if (!dirtyFields.isEmpty()) {
+                updateToDoColumns(connection, toDo, boardId, dirtyFields);
+            }
+            saveActivityChanges(connection, toDo.getId(), activityChanges);
+            unitOfWork.afterCommit(toDo::markPersisted);
+            unitOfWork.commit();
+        }
+    }
+
+    /**
+     * Aggiorna solo le colonne del todo corrispondenti ai campi modificati.
+     *
+     * @param connection la connessione su cui eseguire l'aggiornamento
+     * @param toDo il todo con i valori aggiornati
+     * @param boardId l'ID della board di appartenenza del todo
+     * @param dirtyFields i campi modificati dall'ultimo salvataggio, non vuoto
+     * @throws SQLException se si verifica un errore durante l'aggiornamento
+     */
+    private void updateToDoColumns(Connection connection, ToDo toDo, int boardId, Set<ToDo.Field> dirtyFields) throws SQLException {
+        StringJoiner assignments = new StringJoiner(", ");
+        for (ToDo.Field field : dirtyFields) {
+            assignments.add(columnOf(field) + " = ?");
+        }
+
+        String sql = "UPDATE todos SET " + assignments + " WHERE id = ? AND board_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, toDo.getTitle());
-            pstmt.setString(2, toDo.getDescription());
-            pstmt.setString(3, toDo.getStatus());
-            pstmt.setDate(4, toDo.getDueDate() != null ? Date.valueOf(toDo.getDueDate()) : null);
-            pstmt.setInt(5, toDo.getPosition());
-            pstmt.setString(6, toDo.getOwner());
-            pstmt.setString(7, toDo.getUrl());
-            pstmt.setString(8, toDo.getImage());
-            pstmt.setString(9, toDo.getColor());
-            pstmt.setObject(10, toDo.getId());
-            pstmt.setInt(11, boardId);
+            int index = 1;
+            for (ToDo.Field field : dirtyFields) {
+                switch (field) {
+                    case TITLE -> pstmt.setString(index, toDo.getTitle());
+                    case DESCRIPTION -> pstmt.setString(index, toDo.getDescription());
+                    case STATUS -> pstmt.setString(index, toDo.getStatus());
+                    case DUE_DATE -> pstmt.setDate(index, toDo.getDueDate() != null ? Date.valueOf(toDo.getDueDate()) : null);
+                    case POSITION -> pstmt.setInt(index, toDo.getPosition());
+                    case OWNER -> pstmt.setString(index, toDo.getOwner());
+                    case URL -> pstmt.setString(index, toDo.getUrl());
+                    case IMAGE -> pstmt.setString(index, toDo.getImage());
+                    case COLOR -> pstmt.setString(index, toDo.getColor());
+                }
+                index++;
+            }
+            pstmt.setObject(index++, toDo.getId());
+            pstmt.setInt(index, boardId);
             pstmt.executeUpdate();
-
-            clearActivities(toDo.getId().toString());
-            saveActivities(toDo.getId().toString(), toDo.getActivityList());
         }
     }
 
+    /**
+     * @param field un campo modificabile del todo
+     * @return il nome della colonna della tabella {@code todos} corrispondente
+     */
+    private static String columnOf(ToDo.Field field) {
+        return switch (field) {
+            case TITLE -> "title";
+            case DESCRIPTION -> "description";
+            case STATUS -> "status";
+            case DUE_DATE -> "due_date";
+            case POSITION -> "position";
+            case OWNER -> "owner_username";
+            case URL -> "url";
+            case IMAGE -> "image";
+            case COLOR -> "color";
+        };
+    }
+
     /**
      * Sposta un todo da una board a un'altra aggiornando il suo board_id.
      *
@@ -429,24 +793,51 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public void updateToDoBoardId(String toDoId, int newBoardId) throws SQLException {
         String sql = "UPDATE todos SET board_id = ? WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, newBoardId);
             pstmt.setObject(2, UUID.fromString(toDoId));
             pstmt.executeUpdate();
         }
     }
 
+    /**
+     * Aggiorna la posizione di più todo in un'unica transazione, con un solo batch di UPDATE.
+     *
+     * @param placements le nuove posizioni dei todo
+     * @throws SQLException se si verifica un errore durante l'aggiornamento
+     */
+    @Override
+    public void updateToDoPlacements(Collection<ToDoPlacement> placements) throws SQLException {
+        if (placements.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE todos SET position = ? WHERE id = ?";
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (ToDoPlacement placement : placements) {
+                pstmt.setInt(1, placement.getPosition());
+                pstmt.setObject(2, placement.getToDoId());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            unitOfWork.commit();
+        }
+    }
+
     /**
      * Salva tutte le attività associate a un todo nel database.
      *
      * <p>Utilizza batch processing per ottimizzare le performance quando
      * si salvano multiple attività contemporaneamente.</p>
      *
+     * @param connection la connessione su cui eseguire il salvataggio
      * @param toDoId l'ID stringa del todo proprietario delle attività
      * @param activities mappa delle attività con titolo come chiave e stato completamento come valore
      * @throws SQLException se si verifica un errore durante il salvataggio delle attività
      */
-    private void saveActivities(String toDoId, Map<String, Boolean> activities) throws SQLException {
+    private void saveActivities(Connection connection, String toDoId, Map<String, Boolean> activities) throws SQLException {
         String sql = "INSERT INTO activities (todo_id, activity_title, completed) VALUES (?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             for (Map.Entry<String, Boolean> entry : activities.entrySet()) {
@@ -459,13 +850,57 @@ public class UserDAOImpl implements UserDAO {
         }
     }
 
+    /**
+     * Applica al database solo le modifiche alle attività di un todo, con un batch per tipo di operazione.
+     *
+     * @param connection la connessione su cui eseguire il salvataggio
+     * @param toDoId l'ID del todo proprietario delle attività
+     * @param changes le attività aggiunte, rimosse e modificate dall'ultimo salvataggio
+     * @throws SQLException se si verifica un errore durante il salvataggio delle attività
+     */
+    private void saveActivityChanges(Connection connection, UUID toDoId, ActivityChanges changes) throws SQLException {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        if (!changes.getRemoved().isEmpty()) {
+            String sql = "DELETE FROM activities WHERE todo_id = ? AND activity_title = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (String title : changes.getRemoved()) {
+                    pstmt.setObject(1, toDoId);
+                    pstmt.setString(2, title);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+
+        if (!changes.getToggled().isEmpty()) {
+            String sql = "UPDATE activities SET completed = ? WHERE todo_id = ? AND activity_title = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (Map.Entry<String, Boolean> entry : changes.getToggled().entrySet()) {
+                    pstmt.setBoolean(1, Boolean.TRUE.equals(entry.getValue()));
+                    pstmt.setObject(2, toDoId);
+                    pstmt.setString(3, entry.getKey());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+
+        if (!changes.getAdded().isEmpty()) {
+            saveActivities(connection, toDoId.toString(), changes.getAdded());
+        }
+    }
+
     /**
      * Rimuove tutte le attività associate a un todo dal database.
      *
+     * @param connection la connessione su cui eseguire la rimozione
      * @param toDoId l'ID stringa del todo di cui rimuovere le attività
      * @throws SQLException se si verifica un errore durante la rimozione
      */
-    private void clearActivities(String toDoId) throws SQLException {
+    private void clearActivities(Connection connection, String toDoId) throws SQLException {
         String sql = "DELETE FROM activities WHERE todo_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, UUID.fromString(toDoId));
@@ -489,14 +924,18 @@ public class UserDAOImpl implements UserDAO {
      */
     @Override
     public void deleteToDo(String toDoId, String username) throws SQLException {
-        clearActivities(toDoId);
-        removeAllToDoSharing(toDoId);
-
         String sql = "DELETE FROM todos WHERE id = ? AND owner_username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setObject(1, UUID.fromString(toDoId));
-            pstmt.setString(2, username);
-            pstmt.executeUpdate();
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection connection = DatabaseConnection.getConnection()) {
+            clearActivities(connection, toDoId);
+            removeAllToDoSharing(connection, toDoId);
+
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setObject(1, UUID.fromString(toDoId));
+                pstmt.setString(2, username);
+                pstmt.executeUpdate();
+            }
+            unitOfWork.commit();
         }
     }
 
@@ -510,13 +949,50 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public void shareToDo(String toDoId, String sharedWithUsername) throws SQLException {
         String sql = "INSERT INTO shared_todos (todo_id, shared_with_username) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, UUID.fromString(toDoId));
             pstmt.setString(2, sharedWithUsername);
             pstmt.executeUpdate();
         }
     }
 
+    /**
+     * Condivide un todo con più utenti: risolve i destinatari non ancora noti con una sola query
+     * e inserisce le condivisioni in un unico batch, ignorando quelle già esistenti.
+     *
+     * @param toDoId l'ID stringa del todo da condividere
+     * @param usernames gli username degli utenti con cui condividere il todo
+     * @return gli utenti esistenti con cui il todo è ora condiviso
+     * @throws SQLException se si verifica un errore durante la creazione delle condivisioni
+     */
+    @Override
+    public Set<User> shareToDoWithUsers(String toDoId, Collection<String> usernames) throws SQLException {
+        Set<User> recipients = new HashSet<>();
+        if (usernames.isEmpty()) {
+            return recipients;
+        }
+
+        String insertSql = "INSERT INTO shared_todos (todo_id, shared_with_username) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection connection = DatabaseConnection.getConnection()) {
+            recipients.addAll(userRegistry.resolveAll(connection, usernames).values());
+
+            if (!recipients.isEmpty()) {
+                try (PreparedStatement pstmt = connection.prepareStatement(insertSql)) {
+                    for (User recipient : recipients) {
+                        pstmt.setObject(1, UUID.fromString(toDoId));
+                        pstmt.setString(2, recipient.getUsername());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+            unitOfWork.commit();
+        }
+        return recipients;
+    }
+
     /**
      * Rimuove la condivisione di un todo con un utente specifico.
      *
@@ -527,7 +1003,8 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public void removeToDoSharing(String toDoId, String sharedWithUsername) throws SQLException {
         String sql = "DELETE FROM shared_todos WHERE todo_id = ? AND shared_with_username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, UUID.fromString(toDoId));
             pstmt.setString(2, sharedWithUsername);
             pstmt.executeUpdate();
@@ -545,6 +1022,19 @@ public class UserDAOImpl implements UserDAO {
      */
     @Override
     public void removeAllToDoSharing(String toDoId) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            removeAllToDoSharing(connection, toDoId);
+        }
+    }
+
+    /**
+     * Rimuove tutte le condivisioni di un todo usando una connessione già ottenuta.
+     *
+     * @param connection la connessione su cui eseguire la rimozione
+     * @param toDoId l'ID stringa del todo per cui rimuovere tutte le condivisioni
+     * @throws SQLException se si verifica un errore durante la rimozione delle condivisioni
+     */
+    private void removeAllToDoSharing(Connection connection, String toDoId) throws SQLException {
         String sql = "DELETE FROM shared_todos WHERE todo_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, UUID.fromString(toDoId));
@@ -564,20 +1054,79 @@ public class UserDAOImpl implements UserDAO {
     public Set<User> getAllUsers() throws SQLException {
         Set<User> users = new HashSet<>();
         String sql = "SELECT id, username, password_hash FROM users";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            streamQuery(connection, pstmt, rs -> users.add(readUser(rs)));
+        }
+        return users;
+    }
+
+    /**
+     * Cerca gli utenti per prefisso dell'username, leggendo solo ID e username.
+     *
+     * <p>La ricerca e l'ordinamento usano la collation {@code "C"} e il prefisso diventa un intervallo
+     * di username, con gli estremi calcolati in {@link #prefixUpperBound(String)}, così che il filtro,
+     * la ripresa dopo l'ultimo username letto e l'ordinamento siano serviti dall'indice
+     * {@code users_username_c_idx}: ogni pagina costa una scansione di {@code limit} voci
+     * dell'indice, senza OFFSET, qualunque sia il numero di utenti.</p>
+     *
+     * @param prefix prefisso dell'username, confrontato letteralmente
+     * @param afterUsername ultimo username della pagina precedente, null per la prima pagina
+     * @param limit numero massimo di utenti da restituire
+     * @return ID e username degli utenti trovati, in ordine di username
+     * @throws SQLException se si verifica un errore durante la ricerca
+     */
+    @Override
+    public List<UserSummary> searchUsers(String prefix, String afterUsername, int limit) throws SQLException {
+        String upperBound = prefixUpperBound(prefix);
+        String sql = "SELECT id, username FROM users " +
+                "WHERE username COLLATE \"C\" >= ? " +
+                (upperBound != null ? "AND username COLLATE \"C\" < ? " : "") +
+                (afterUsername != null ? "AND username COLLATE \"C\" > ? " : "") +
+                "ORDER BY username COLLATE \"C\" LIMIT ?";
+
+        List<UserSummary> users = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setString(index++, prefix);
+            if (upperBound != null) {
+                pstmt.setString(index++, upperBound);
+            }
+            if (afterUsername != null) {
+                pstmt.setString(index++, afterUsername);
+            }
+            pstmt.setInt(index, limit);
+            ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                users.add(new User(
-                        rs.getString("username"),
-                        rs.getString("password_hash"),
-                        null,
-                        (UUID) rs.getObject("id")
-                ));
+                users.add(new UserSummary((UUID) rs.getObject("id"), rs.getString("username")));
             }
         }
         return users;
     }
 
+    /**
+     * Calcola il primo username, nell'ordine della collation {@code "C"}, successivo a tutti quelli
+     * che iniziano con il prefisso: il prefisso con l'ultimo carattere incrementato. La collation
+     * {@code "C"} confronta i byte UTF-8, che seguono l'ordine dei code point.
+     *
+     * @param prefix prefisso dell'username
+     * @return l'estremo superiore escluso, oppure null se il prefisso è vuoto e non serve alcun limite
+     */
+    private static String prefixUpperBound(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int last = prefix.codePointBefore(end);
+            end -= Character.charCount(last);
+            if (last < Character.MAX_CODE_POINT) {
+                // I surrogati non sono caratteri validi: dopo U+D7FF viene U+E000
+                int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+                return new StringBuilder(end + 2).append(prefix, 0, end).appendCodePoint(next).toString();
+            }
+        }
+        return null;
+    }
+
     /**
      * Recupera la lista di tutti gli username con cui è condiviso un todo specifico.
      *
@@ -590,7 +1139,8 @@ public class UserDAOImpl implements UserDAO {
     public List<String> getSharedUsernamesForToDo(String toDoId) throws SQLException {
         List<String> sharedUsernames = new ArrayList<>();
         String sql = "SELECT shared_with_username FROM shared_todos WHERE todo_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setObject(1, UUID.fromString(toDoId));
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
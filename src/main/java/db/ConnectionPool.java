@@ -0,0 +1,451 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool limitato di connessioni JDBC thread-safe.
+ *
+ * <p>Ogni chiamante ottiene una connessione logica tramite {@link #getConnection()} e la
+ * restituisce al pool chiamandone {@code close()}. Il pool offre:</p>
+ * <ul>
+ *   <li>dimensione minima e massima delle connessioni fisiche aperte</li>
+ *   <li>timeout di attesa quando tutte le connessioni sono in uso</li>
+ *   <li>chiusura delle connessioni inattive oltre la dimensione minima</li>
+ *   <li>validazione al prestito delle connessioni inattive da tempo o che hanno appena avuto un errore</li>
+ *   <li>segnalazione delle connessioni trattenute troppo a lungo (leak detection), con lo stack
+ *       del prestito solo se richiesto</li>
+ *   <li>ripristino alla restituzione delle impostazioni modificate dal chiamante
+ *       (autocommit, sola lettura, isolamento, catalogo e schema)</li>
+ *   <li>cache LRU dei prepared statement di ciascuna connessione, con contatori di hit e miss</li>
+ * </ul>
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /** Intervallo tra due esecuzioni del thread di manutenzione, in millisecondi */
+    private static final long HOUSEKEEPING_INTERVAL_MS = 30_000;
+
+    /** Timeout della validazione di una connessione al prestito, in secondi */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /** Inattività oltre la quale una connessione viene validata prima del prestito, in millisecondi */
+    private static final long VALIDATION_IDLE_THRESHOLD_MS = 5_000;
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final boolean captureBorrowSites;
+    private final int statementCacheSize;
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    /** Permessi disponibili: limita il numero di connessioni contemporaneamente in prestito */
+    private final Semaphore permits;
+
+    /** Connessioni fisiche inattive, la più recente in testa */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /** Connessioni fisiche attualmente in prestito */
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Crea un nuovo pool e apre subito le connessioni minime.
+     *
+     * @param url URL JDBC del database
+     * @param connectionProperties proprietà del driver (credenziali e parametri di connessione)
+     * @param minSize numero minimo di connessioni mantenute aperte
+     * @param maxSize numero massimo di connessioni aperte contemporaneamente
+     * @param acquireTimeoutMillis attesa massima per ottenere una connessione
+     * @param idleTimeoutMillis inattività dopo la quale una connessione oltre il minimo viene chiusa
+     * @param leakDetectionThresholdMillis durata di un prestito oltre la quale viene segnalato un possibile leak
+     * @param captureBorrowSites true per registrare lo stack di ogni prestito e stamparlo con la segnalazione del leak
+     * @param statementCacheSize numero massimo di prepared statement mantenuti per connessione (0 per disabilitare la cache)
+     * @throws SQLException se non è possibile aprire le connessioni iniziali
+     */
+    public ConnectionPool(String url, Properties connectionProperties, int minSize, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, long leakDetectionThresholdMillis,
+                          boolean captureBorrowSites, int statementCacheSize) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.captureBorrowSites = captureBorrowSites;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.offerFirst(openPooledConnection());
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prende in prestito una connessione dal pool, attendendo al massimo il timeout configurato.
+     * La connessione va restituita chiamandone {@code close()}, tipicamente con try-with-resources.
+     *
+     * @return una connessione valida
+     * @throws SQLException se il pool è chiuso, se il timeout scade o se non è possibile aprire una connessione
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a database connection (" + borrowed.size() + " of " + maxSize + " in use).", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", "08001", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    break;
+                }
+                System.err.println("WARN: Discarding broken pooled database connection.");
+                closeQuietly(pooled.physical);
+            }
+            if (pooled == null) {
+                pooled = openPooledConnection();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            // Capturing a stack trace on every borrow is expensive: only done when requested
+            pooled.borrowSite = captureBorrowSites ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return numero di connessioni attualmente in prestito
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return numero di connessioni inattive pronte al prestito
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return numero di prepared statement riutilizzati dalla cache
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * @return numero di prepared statement che è stato necessario preparare
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * @return numero di prepared statement rimossi dalla cache per far posto ad altri
+     */
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions.sum();
+    }
+
+    /**
+     * Chiude il pool e tutte le connessioni inattive. Le connessioni in prestito
+     * vengono chiuse al momento della loro restituzione.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.physical);
+        }
+    }
+
+    /**
+     * Restituisce al pool una connessione fisica, ripristinandone lo stato
+     * oppure scartandola se non più utilizzabile.
+     *
+     * @param pooled la connessione restituita
+     */
+    private void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+        try {
+            boolean reusable = !closed && !pooled.physical.isClosed();
+            if (reusable && !pooled.physical.getAutoCommit()) {
+                // Una transazione lasciata aperta non deve propagarsi al prossimo utilizzatore
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (reusable && pooled.settingsChanged) {
+                pooled.restoreDefaults();
+            }
+            if (reusable) {
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                closeQuietly(pooled.physical);
+            }
+        } catch (SQLException e) {
+            System.err.println("WARN: Discarding pooled database connection after reset failure: " + e.getMessage());
+            closeQuietly(pooled.physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Manutenzione periodica: chiude le connessioni inattive oltre il minimo
+     * e segnala le connessioni in prestito da troppo tempo.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Le connessioni meno recenti sono in coda alla deque
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() + borrowed.size() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+                closeQuietly(pooled.physical);
+            }
+        }
+
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakDetectionThresholdMillis) {
+                pooled.leakReported = true;
+                System.err.println("WARN: Possible connection leak: a database connection has been borrowed for " + (now - pooled.borrowedAt) + " ms.");
+                if (pooled.borrowSite != null) {
+                    pooled.borrowSite.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Apre una nuova connessione fisica e ne registra le impostazioni iniziali.
+     */
+    private PooledConnection openPooledConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        try {
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(physical);
+            throw e;
+        }
+    }
+
+    /**
+     * Verifica che una connessione inattiva possa essere prestata. La validazione con una richiesta
+     * al database viene eseguita solo se la connessione è inattiva da più di
+     * {@link #VALIDATION_IDLE_THRESHOLD_MS} o se durante l'ultimo prestito si è verificato un errore.
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            boolean recentlyUsed = System.currentTimeMillis() - pooled.lastUsed < VALIDATION_IDLE_THRESHOLD_MS;
+            if (recentlyUsed && !pooled.failed) {
+                return true;
+            }
+            if (!pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return false;
+            }
+            pooled.failed = false;
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection physical) {
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("WARN: Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connessione fisica gestita dal pool, con le informazioni sul prestito corrente.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        /** True se un'operazione sulla connessione o sui suoi statement in cache è fallita dall'ultima validazione */
+        private volatile boolean failed;
+
+        /** Impostazioni della connessione appena aperta, ripristinate alla restituzione */
+        private final boolean defaultReadOnly;
+        private final int defaultTransactionIsolation;
+        private final String defaultCatalog;
+        private final String defaultSchema;
+
+        /** True se durante il prestito corrente è stata modificata una delle impostazioni predefinite */
+        private volatile boolean settingsChanged;
+
+        private PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultReadOnly = physical.isReadOnly();
+            this.defaultTransactionIsolation = physical.getTransactionIsolation();
+            this.defaultCatalog = physical.getCatalog();
+            this.defaultSchema = physical.getSchema();
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses, statementCacheEvictions,
+                            () -> failed = true)
+                    : null;
+        }
+
+        /**
+         * Riporta sola lettura, livello di isolamento, catalogo e schema ai valori iniziali,
+         * così che le scelte di un chiamante non passino al successivo.
+         *
+         * @throws SQLException se non è possibile ripristinare un'impostazione
+         */
+        private void restoreDefaults() throws SQLException {
+            if (physical.isReadOnly() != defaultReadOnly) {
+                physical.setReadOnly(defaultReadOnly);
+            }
+            if (physical.getTransactionIsolation() != defaultTransactionIsolation) {
+                physical.setTransactionIsolation(defaultTransactionIsolation);
+            }
+            if (!Objects.equals(physical.getCatalog(), defaultCatalog)) {
+                physical.setCatalog(defaultCatalog);
+            }
+            if (!Objects.equals(physical.getSchema(), defaultSchema)) {
+                physical.setSchema(defaultSchema);
+            }
+            settingsChanged = false;
+        }
+
+        /**
+         * Crea una connessione logica per il prestito corrente: la sua {@code close()}
+         * restituisce la connessione fisica al pool invece di chiuderla.
+         *
+         * @return la connessione logica da consegnare al chiamante
+         */
+        private Connection newHandle() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean handleClosed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!handleClosed) {
+                                handleClosed = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return handleClosed || physical.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled[" + physical + "]";
+                        case "setReadOnly":
+                        case "setTransactionIsolation":
+                        case "setCatalog":
+                        case "setSchema":
+                            // Restored on release; only tracked so untouched connections skip the checks
+                            settingsChanged = true;
+                            return invokePhysical(method, args);
+                        case "prepareStatement":
+                            if (!handleClosed && statementCache != null && isCacheable(method)) {
+                                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                                return statementCache.prepare((String) args[0], autoGeneratedKeys, (Connection) proxy);
+                            }
+                            return invokePhysical(method, args);
+                        default:
+                            return invokePhysical(method, args);
+                    }
+                }
+
+                /**
+                 * Inoltra la chiamata alla connessione fisica, segnando la connessione da validare
+                 * al prossimo prestito se la chiamata fallisce.
+                 */
+                private Object invokePhysical(Method method, Object[] args) throws Throwable {
+                    if (handleClosed) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        if (e.getCause() instanceof SQLException) {
+                            failed = true;
+                        }
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+
+        /**
+         * Solo {@code prepareStatement(String)} e {@code prepareStatement(String, int)} passano dalla cache;
+         * le varianti con tipo di cursore o colonne generate vengono preparate direttamente.
+         */
+        private boolean isCacheable(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+    }
+}
@@ -1,18 +1,23 @@
 package db;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 /**
- * Classe di utility per gestire una connessione singleton al database PostgreSQL.
+ * Classe di utility che fornisce l'accesso al pool di connessioni verso il database PostgreSQL.
+ * Ogni operazione prende in prestito una connessione e la restituisce chiudendola.
+ *
+ * <p>Se il thread corrente ha una transazione aperta (vedi {@link #bindTransaction(Connection)}),
+ * tutte le operazioni usano la connessione della transazione.</p>
  */
 public class DatabaseConnection {
-    private static Connection conn;
+    private static volatile ConnectionPool pool;
+
+    /** Connessione della transazione aperta dal thread corrente, se presente */
+    private static final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
 
     /** URL del database */
     private static String url = "jdbc:postgresql://localhost:5432/ToDo";
@@ -23,17 +28,121 @@ public class DatabaseConnection {
     /** Password per il database */
     private static String password = "Sherlock96@";
 
+    /** Numero minimo di connessioni mantenute aperte dal pool */
+    private static final int MIN_POOL_SIZE = 2;
+
+    /** Numero massimo di connessioni aperte contemporaneamente */
+    private static final int MAX_POOL_SIZE = 10;
+
+    /** Attesa massima per ottenere una connessione dal pool, in millisecondi */
+    private static final long ACQUIRE_TIMEOUT_MS = 5_000;
+
+    /** Inattività dopo la quale una connessione oltre il minimo viene chiusa, in millisecondi */
+    private static final long IDLE_TIMEOUT_MS = 5 * 60_000;
+
+    /** Durata di un prestito oltre la quale viene segnalato un possibile leak, in millisecondi */
+    private static final long LEAK_DETECTION_THRESHOLD_MS = 60_000;
+
+    /** Se true il pool registra lo stack di ogni prestito, per indicare dove è stata presa una connessione trattenuta */
+    private static final boolean LEAK_DETECTION_STACK_TRACES = Boolean.getBoolean("todo.leakDetectionStackTraces");
+
+    /** Numero massimo di prepared statement mantenuti in cache per ciascuna connessione */
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
     /**
-     * Restituisce un'istanza condivisa (singleton) della connessione al database.
-     * Se la connessione è nulla o chiusa, ne crea una nuova.
+     * Restituisce il pool di connessioni condiviso, creandolo al primo utilizzo.
+     *
+     * @return il pool di connessioni al database PostgreSQL
+     * @throws SQLException se non è possibile aprire le connessioni iniziali
+     */
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    Properties properties = new Properties();
+                    properties.setProperty("user", username);
+                    properties.setProperty("password", password);
+                    // Gli statement in cache vengono riusati: il driver li prepara lato server già dalla prima esecuzione
+                    properties.setProperty("prepareThreshold", "1");
+                    current = new ConnectionPool(url, properties, MIN_POOL_SIZE, MAX_POOL_SIZE,
+                            ACQUIRE_TIMEOUT_MS, IDLE_TIMEOUT_MS, LEAK_DETECTION_THRESHOLD_MS, LEAK_DETECTION_STACK_TRACES,
+                            STATEMENT_CACHE_SIZE);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Prende in prestito una connessione dal pool.
+     * La connessione va chiusa al termine dell'operazione per restituirla al pool.
+     *
+     * <p>Se il thread corrente ha una transazione aperta viene restituita la sua connessione:
+     * in questo caso la {@code close()} non ha effetto e la connessione resta alla transazione.</p>
      *
      * @return Connessione al database PostgreSQL
-     * @throws SQLException se si verifica un errore nella connessione
+     * @throws SQLException se si verifica un errore nella connessione o scade il timeout di attesa
      */
-    public static Connection getInstance() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-            conn = DriverManager.getConnection(url, username, password);
+    public static Connection getConnection() throws SQLException {
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return nonClosing(bound);
         }
-        return conn;
+        return getPool().getConnection();
+    }
+
+    /**
+     * Associa al thread corrente la connessione di una transazione, che verrà usata
+     * da tutte le successive chiamate a {@link #getConnection()} dello stesso thread.
+     *
+     * @param connection la connessione della transazione, con autocommit disattivato
+     * @throws IllegalStateException se il thread ha già una transazione aperta
+     */
+    public static void bindTransaction(Connection connection) {
+        if (transactionConnection.get() != null) {
+            throw new IllegalStateException("A transaction is already bound to the current thread.");
+        }
+        transactionConnection.set(connection);
+    }
+
+    /**
+     * Rimuove l'associazione tra il thread corrente e la connessione della sua transazione.
+     */
+    public static void unbindTransaction() {
+        transactionConnection.remove();
+    }
+
+    /**
+     * @return true se il thread corrente ha una transazione aperta
+     */
+    public static boolean isTransactionBound() {
+        return transactionConnection.get() != null;
+    }
+
+    /**
+     * Crea una vista della connessione la cui {@code close()} non ha effetto, così che i DAO
+     * possano continuare a usare try-with-resources anche all'interno di una transazione.
+     */
+    private static Connection nonClosing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
     }
 }
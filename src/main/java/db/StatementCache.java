@@ -0,0 +1,225 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU dei {@link PreparedStatement} di una singola connessione fisica, con chiave il testo SQL.
+ *
+ * <p>Gli statement restituiti sono involucri: la loro {@code close()} non chiude lo statement
+ * fisico ma lo ripulisce, ripristinandone le impostazioni (fetch size, numero massimo di righe,
+ * timeout), e lo rende di nuovo disponibile, così che le query più frequenti vengano preparate
+ * una sola volta per connessione. La loro {@code getConnection()} restituisce la connessione
+ * logica del prestito corrente, non quella fisica. Se uno statement è già in uso
+ * (es. due query identiche annidate) ne viene preparato uno nuovo non memorizzato.</p>
+ *
+ * <p>La classe non è thread-safe: ogni istanza è usata solo dal thread che ha in prestito la connessione.</p>
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final Runnable failureListener;
+    private final Map<String, CachedStatement> statements;
+
+    /**
+     * Crea una cache per la connessione fisica indicata.
+     *
+     * @param physical la connessione su cui preparare gli statement
+     * @param maxSize numero massimo di statement mantenuti aperti
+     * @param hits contatore condiviso degli statement trovati in cache
+     * @param misses contatore condiviso degli statement preparati ex novo
+     * @param evictions contatore condiviso degli statement rimossi per far posto ad altri
+     * @param failureListener avvisato quando un'operazione su uno statement in cache lancia una {@link SQLException}
+     */
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions, Runnable failureListener) {
+        this.physical = physical;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.failureListener = failureListener;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                evictions.increment();
+                if (!eldest.getValue().inUse) {
+                    closeQuietly(eldest.getValue().statement);
+                } else {
+                    eldest.getValue().evicted = true;
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Restituisce uno statement preparato per il testo SQL indicato, riusandolo se presente in cache.
+     *
+     * @param sql il testo SQL
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} o {@link Statement#NO_GENERATED_KEYS}
+     * @param logical la connessione logica che richiede lo statement
+     * @return lo statement da usare e chiudere come di consueto
+     * @throws SQLException se la preparazione fallisce
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection logical) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+        } else {
+            misses.increment();
+            PreparedStatement statement;
+            try {
+                statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            } catch (SQLException e) {
+                failureListener.run();
+                throw e;
+            }
+            if (cached != null) {
+                // Lo statement in cache è occupato: quello nuovo verrà chiuso davvero al termine
+                return statement;
+            }
+            try {
+                cached = new CachedStatement(key, statement);
+            } catch (SQLException e) {
+                closeQuietly(statement);
+                throw e;
+            }
+            statements.put(key, cached);
+        }
+        cached.inUse = true;
+        return cached.newHandle(logical);
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("WARN: Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Statement fisico memorizzato nella cache.
+     */
+    private final class CachedStatement {
+        private final String key;
+        private final PreparedStatement statement;
+        private final int defaultFetchSize;
+        private final int defaultFetchDirection;
+        private final int defaultMaxRows;
+        private final int defaultMaxFieldSize;
+        private final int defaultQueryTimeout;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(String key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.defaultFetchSize = statement.getFetchSize();
+            this.defaultFetchDirection = statement.getFetchDirection();
+            this.defaultMaxRows = statement.getMaxRows();
+            this.defaultMaxFieldSize = statement.getMaxFieldSize();
+            this.defaultQueryTimeout = statement.getQueryTimeout();
+        }
+
+        /**
+         * Riporta lo statement nello stato iniziale e lo rende disponibile,
+         * oppure lo chiude se nel frattempo è stato rimosso dalla cache.
+         * Se il ripristino fallisce lo statement viene rimosso dalla cache e chiuso.
+         */
+        private void release() throws SQLException {
+            if (evicted) {
+                inUse = false;
+                statement.close();
+                return;
+            }
+            try {
+                reset();
+            } catch (SQLException | RuntimeException e) {
+                // A half-reset statement must never be handed out again
+                statements.remove(key, this);
+                closeQuietly(statement);
+                throw e;
+            } finally {
+                inUse = false;
+            }
+        }
+
+        private void reset() throws SQLException {
+            ResultSet current = statement.getResultSet();
+            if (current != null) {
+                current.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+            // Le impostazioni scelte da chi ha usato lo statement non devono passare al successivo
+            statement.setFetchSize(defaultFetchSize);
+            statement.setFetchDirection(defaultFetchDirection);
+            statement.setMaxRows(defaultMaxRows);
+            statement.setMaxFieldSize(defaultMaxFieldSize);
+            statement.setQueryTimeout(defaultQueryTimeout);
+        }
+
+        /**
+         * @param logical la connessione logica restituita da {@code getConnection()} dello statement
+         */
+        private PreparedStatement newHandle(Connection logical) {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean handleClosed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!handleClosed) {
+                                handleClosed = true;
+                                release();
+                            }
+                            return null;
+                        case "isClosed":
+                            return handleClosed || statement.isClosed();
+                        case "getConnection":
+                            if (handleClosed) {
+                                throw new SQLException("Statement has already been closed.");
+                            }
+                            return logical;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            if (handleClosed) {
+                                throw new SQLException("Statement has already been closed.");
+                            }
+                            try {
+                                return method.invoke(statement, args);
+                            } catch (InvocationTargetException e) {
+                                if (e.getCause() instanceof SQLException) {
+                                    failureListener.run();
+                                }
+                                throw e.getCause();
+                            }
+                    }
+                }
+            };
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package gui;
 
+import controller.AsyncController;
 import controller.Controller;
 import models.ToDo;
 import models.board.Board;
@@ -17,9 +18,11 @@ import java.time.ZoneId;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.toedter.calendar.JDateChooser;
 
@@ -72,7 +75,7 @@ public class BoardForm {
     /**
      * Lista grafica dei ToDo
      */
-    private JList jList;
+    private JList<ToDo> jList;
 
     /**
      * Campo di testo per la ricerca per titolo
@@ -117,33 +120,60 @@ public class BoardForm {
     /**
      * Modello della lista per la gestione dinamica dei ToDo visualizzati
      */
-    public static DefaultListModel<String> listModel;
+    public static DefaultListModel<ToDo> listModel;
 
     /**
      * Controller per la gestione della logica di business
      */
     private Controller controller;
 
+    /**
+     * Facciata asincrona del controller per le operazioni che accedono al database
+     */
+    private AsyncController asyncController;
+
     /**
      * Data evidenziata per il filtraggio e la visualizzazione speciale
      */
     private LocalDate highlightDate;
 
+    /**
+     * Ritardo, in millisecondi, tra l'ultimo tasto premuto nella ricerca e l'aggiornamento della lista
+     */
+    private static final int SEARCH_DEBOUNCE_MILLIS = 150;
+
+    /**
+     * Timer che applica la ricerca per titolo solo quando l'utente smette di digitare
+     */
+    private final Timer searchDebounceTimer = new Timer(SEARCH_DEBOUNCE_MILLIS, e -> filterToDoList());
+
+    /**
+     * True mentre è in corso il caricamento di una pagina di ToDo della board selezionata
+     */
+    private boolean pageRequestInFlight;
+
+    /**
+     * Numero di operazioni in background non ancora completate: finché è positivo
+     * i pulsanti che modificano le board restano disabilitati
+     */
+    private int requestsInFlight;
+
     /**
      * Costruttore della classe BoardForm.
      * Inizializza l'interfaccia grafica completa, configura tutti i componenti,
      * imposta i listener per gli eventi e prepara la board per l'uso.
      *
      * @param frame Il frame genitore (generalmente dalla form di login/registrazione)
-     * @param c     Il controller che gestisce la logica dell'applicazione
+     * @param c     Il controller asincrono che gestisce la logica dell'applicazione
      */
-    public BoardForm(JFrame frame, Controller c) {
+    public BoardForm(JFrame frame, AsyncController c) {
         frameBoardForm = new JFrame("Personal Area");
         frameBoardForm.setContentPane(board);
         frameBoardForm.pack();
         frameBoardForm.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        this.controller = c;
+        this.asyncController = c;
+        this.controller = c.getController();
 
         // Inizializza la combobox delle board
         this.comboBoxBoards.addItem("Boards");
@@ -192,7 +222,7 @@ public class BoardForm {
                         Board currentBoard = controller.user.getBoard(selectedBoardEnum);
                         if (currentBoard != null) {
                             currentBoard.setColor(colorSelected);
-                            controller.updateBoard(currentBoard);
+                            track(asyncController.updateBoard(currentBoard));
                             System.out.println("DEBUG: Board color changed to " + colorSelected + " for board " + selectedBoardDisplayName);
                         }
                     }
@@ -211,9 +241,9 @@ public class BoardForm {
         });
 
         // Inizializza il modello e il renderer della lista ToDo
-        listModel = new DefaultListModel<String>();
+        listModel = new DefaultListModel<ToDo>();
         jList.setModel(listModel);
-        jList.setCellRenderer(new ToDoListCellRenderer(controller, null, this));
+        jList.setCellRenderer(new ToDoListCellRenderer(null, this));
 
         // Disabilita inizialmente tutti i pulsanti che richiedono selezioni
         MoveUp.setEnabled(false);
@@ -239,11 +269,7 @@ public class BoardForm {
         // Listener per la selezione degli elementi nella lista
         jList.addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
-                boolean isSelected = !jList.isSelectionEmpty();
-                MoveUp.setEnabled(isSelected && jList.getSelectedIndex() > 0);
-                MoveDown.setEnabled(isSelected && jList.getSelectedIndex() < listModel.getSize() - 1);
-                deleteToDo.setEnabled(isSelected);
-                changeBoard.setEnabled(isSelected);
+                updateActionButtons();
             }
         });
 
@@ -263,7 +289,7 @@ public class BoardForm {
                     return;
                 }
 
-                ToDoForm toDoForm = new ToDoForm(frameBoardForm, controller, currentBoardDisplayName, null);
+                ToDoForm toDoForm = new ToDoForm(frameBoardForm, asyncController, currentBoardDisplayName, null);
                 frameBoardForm.setVisible(false);
                 toDoForm.frameToDoForm.setVisible(true);
             }
@@ -281,7 +307,7 @@ public class BoardForm {
                 if (e.getClickCount() == 2) {
                     int index = jList.locationToIndex(e.getPoint());
                     if (index != -1) {
-                        String selectedToDoTitle = (String) listModel.getElementAt(index);
+                        ToDo selectedToDo = listModel.getElementAt(index);
                         String currentBoardDisplayName = comboBoxBoards.getSelectedItem().toString();
 
                         if ("Boards".equals(currentBoardDisplayName)) {
@@ -289,13 +315,19 @@ public class BoardForm {
                             return;
                         }
 
-                        ToDo selectedToDo = controller.getToDoByTitle(selectedToDoTitle, currentBoardDisplayName);
-
                         if (selectedToDo != null) {
-                            ToDoForm toDoForm = new ToDoForm(frameBoardForm, controller, currentBoardDisplayName, selectedToDo);
-                            frameBoardForm.setVisible(false);
-                            toDoForm.frameToDoForm.setVisible(true);
-                            jList.clearSelection();
+                            // I dettagli del ToDo vengono letti solo ora, fuori dall'Event Dispatch Thread
+                            track(asyncController.loadToDoDetails(selectedToDo))
+                                    .thenAccept(loadedToDo -> {
+                                        ToDoForm toDoForm = new ToDoForm(frameBoardForm, asyncController, currentBoardDisplayName, loadedToDo);
+                                        frameBoardForm.setVisible(false);
+                                        toDoForm.frameToDoForm.setVisible(true);
+                                        jList.clearSelection();
+                                    })
+                                    .exceptionally(ex -> {
+                                        showDatabaseError("loading ToDo details", ex);
+                                        return null;
+                                    });
                         }
                     }
                 }
@@ -317,14 +349,10 @@ public class BoardForm {
                 jList.clearSelection();
 
                 boolean boardSelected = !"Boards".equals(selectedBoardDisplayName);
-                addToDo.setEnabled(boardSelected);
                 orderToDoByTitle.setEnabled(boardSelected);
                 OrderByDueDate.setEnabled(boardSelected);
                 todayDueDate.setEnabled(boardSelected);
-                MoveUp.setEnabled(false);
-                MoveDown.setEnabled(false);
-                deleteToDo.setEnabled(false);
-                changeBoard.setEnabled(false);
+                updateActionButtons();
                 if (dateChooserSearchDate != null) {
                     dateChooserSearchDate.setEnabled(boardSelected);
                 }
@@ -339,9 +367,9 @@ public class BoardForm {
                         }
                     }
 
-                    ArrayList<String> todos = controller.getToDoListString(selectedBoardDisplayName);
-                    listModel.addAll(todos);
+                    listModel.addAll(controller.getToDoList(selectedBoardDisplayName));
                     ((ToDoListCellRenderer) jList.getCellRenderer()).setCurrentBoard(selectedBoardDisplayName);
+                    requestNextPageIfNeeded();
                 } else {
                     ((ToDoListCellRenderer) jList.getCellRenderer()).setCurrentBoard(null);
                     setPanelColors("Blue");
@@ -357,18 +385,24 @@ public class BoardForm {
             }
         });
 
-        // Listener per la ricerca testuale in tempo reale
+        // Listener per il caricamento differito: avvicinandosi al fondo della lista
+        // viene caricata la pagina successiva dei ToDo della board
+        ScrollPanel.getVerticalScrollBar().addAdjustmentListener(e -> requestNextPageIfNeeded());
+
+        // Listener per la ricerca testuale in tempo reale: ogni modifica riavvia il timer,
+        // così la lista viene filtrata una sola volta al termine di una sequenza di tasti
+        searchDebounceTimer.setRepeats(false);
         textFieldSearchTitle.getDocument().addDocumentListener(new DocumentListener() {
             public void insertUpdate(DocumentEvent e) {
-                filterToDoList();
+                searchDebounceTimer.restart();
             }
 
             public void removeUpdate(DocumentEvent e) {
-                filterToDoList();
+                searchDebounceTimer.restart();
             }
 
             public void changedUpdate(DocumentEvent e) {
-                filterToDoList();
+                searchDebounceTimer.restart();
             }
         });
 
@@ -393,13 +427,11 @@ public class BoardForm {
                 BoardName selectedBoardEnum = getBoardNameFromDisplayName(selectedBoardDisplayName);
                 if (selectedBoardEnum == null) return;
 
-                List<ToDo> todos = controller.user.getBoard(selectedBoardEnum).getTodoList();
+                List<ToDo> todos = new ArrayList<>(controller.user.getBoard(selectedBoardEnum).getTodoList());
                 todos.sort(Comparator.comparing(ToDo::getDueDate, Comparator.nullsLast(LocalDate::compareTo)));
 
                 listModel.clear();
-                for (ToDo todo : todos) {
-                    listModel.addElement(todo.getTitle());
-                }
+                listModel.addAll(todos);
                 jList.clearSelection();
                 MoveUp.setEnabled(false);
                 MoveDown.setEnabled(false);
@@ -426,13 +458,11 @@ public class BoardForm {
                 BoardName selectedBoardEnum = getBoardNameFromDisplayName(selectedBoardDisplayName);
                 if (selectedBoardEnum == null) return;
 
-                List<ToDo> todos = controller.user.getBoard(selectedBoardEnum).getTodoList();
+                List<ToDo> todos = new ArrayList<>(controller.user.getBoard(selectedBoardEnum).getTodoList());
                 todos.sort(Comparator.comparing(todo -> todo.getTitle().toLowerCase()));
 
                 listModel.clear();
-                for (ToDo todo : todos) {
-                    listModel.addElement(todo.getTitle());
-                }
+                listModel.addAll(todos);
                 jList.clearSelection();
                 MoveUp.setEnabled(false);
                 MoveDown.setEnabled(false);
@@ -447,37 +477,31 @@ public class BoardForm {
         MoveUp.addActionListener(new ActionListener() {
             /**
              * Sposta il ToDo selezionato di una posizione verso l'alto nella lista.
-             * Aggiorna sia la visualizzazione che l'ordine effettivo nella board.
+             * Aggiorna sia la visualizzazione che l'ordine effettivo nella board;
+             * la nuova posizione viene salvata in differita.
              *
              * @param e L'evento del pulsante
              */
             @Override
             public void actionPerformed(ActionEvent e) {
+                if (requestsInFlight > 0) {
+                    return;
+                }
                 int selectedIndex = jList.getSelectedIndex();
                 String selectedBoardDisplayName = comboBoxBoards.getSelectedItem().toString();
                 if (selectedIndex > 0 && !"Boards".equals(selectedBoardDisplayName)) {
-                    String selectedTitle = listModel.getElementAt(selectedIndex);
-
                     BoardName currentBoardEnum = getBoardNameFromDisplayName(selectedBoardDisplayName);
                     if (currentBoardEnum == null) return;
 
-                    String elementToMove = listModel.remove(selectedIndex);
-                    listModel.add(selectedIndex - 1, elementToMove);
-
-                    List<ToDo> todos = controller.user.getBoard(currentBoardEnum).getTodoList();
-                    ToDo todoToMove = null;
-                    int actualIndex = -1;
-                    for (int i = 0; i < todos.size(); i++) {
-                        if (todos.get(i).getTitle().equals(selectedTitle)) {
-                            todoToMove = todos.get(i);
-                            actualIndex = i;
-                            break;
-                        }
+                    ToDo todoToMove = listModel.getElementAt(selectedIndex);
+                    Board currentBoard = controller.user.getBoard(currentBoardEnum);
+                    int actualIndex = currentBoard.getTodoList().indexOf(todoToMove);
+                    if (actualIndex <= 0 || !controller.reorderToDo(selectedBoardDisplayName, todoToMove, actualIndex - 1)) {
+                        return;
                     }
 
-                    if (todoToMove != null && actualIndex != -1 && actualIndex > 0) {
-                        Collections.swap(todos, actualIndex, actualIndex - 1);
-                    }
+                    listModel.remove(selectedIndex);
+                    listModel.add(selectedIndex - 1, todoToMove);
 
                     jList.setSelectedIndex(selectedIndex - 1);
                     jList.ensureIndexIsVisible(selectedIndex - 1);
@@ -490,38 +514,34 @@ public class BoardForm {
         MoveDown.addActionListener(new ActionListener() {
             /**
              * Sposta il ToDo selezionato di una posizione verso il basso nella lista.
-             * Aggiorna sia la visualizzazione che l'ordine effettivo nella board.
+             * Aggiorna sia la visualizzazione che l'ordine effettivo nella board;
+             * la nuova posizione viene salvata in differita.
              *
              * @param e L'evento del pulsante
              */
             @Override
             public void actionPerformed(ActionEvent e) {
+                if (requestsInFlight > 0) {
+                    return;
+                }
                 int selectedIndex = jList.getSelectedIndex();
                 String selectedBoardDisplayName = comboBoxBoards.getSelectedItem().toString();
                 if (selectedIndex < listModel.getSize() - 1 && selectedIndex != -1 && !"Boards".equals(selectedBoardDisplayName)) {
-                    String selectedTitle = listModel.getElementAt(selectedIndex);
-
                     BoardName currentBoardEnum = getBoardNameFromDisplayName(selectedBoardDisplayName);
                     if (currentBoardEnum == null) return;
 
-                    String elementToMove = listModel.remove(selectedIndex);
-                    listModel.add(selectedIndex + 1, elementToMove);
-
-                    List<ToDo> todos = controller.user.getBoard(currentBoardEnum).getTodoList();
-
-                    ToDo todoToMove = null;
-                    int actualIndex = -1;
-                    for (int i = 0; i < todos.size(); i++) {
-                        if (todos.get(i).getTitle().equals(selectedTitle)) {
-                            todoToMove = todos.get(i);
-                            actualIndex = i;
-                            break;
-                        }
+                    ToDo todoToMove = listModel.getElementAt(selectedIndex);
+                    Board currentBoard = controller.user.getBoard(currentBoardEnum);
+                    List<ToDo> todos = currentBoard.getTodoList();
+                    int actualIndex = todos.indexOf(todoToMove);
+                    // In una board caricata in parte non si può spostare un ToDo in fondo ai ToDo caricati
+                    if (actualIndex == -1 || actualIndex >= todos.size() - 1
+                            || !controller.reorderToDo(selectedBoardDisplayName, todoToMove, actualIndex + 1)) {
+                        return;
                     }
 
-                    if (todoToMove != null && actualIndex != -1 && actualIndex < todos.size() - 1) {
-                        Collections.swap(todos, actualIndex, actualIndex + 1);
-                    }
+                    listModel.remove(selectedIndex);
+                    listModel.add(selectedIndex + 1, todoToMove);
 
                     jList.setSelectedIndex(selectedIndex + 1);
                     jList.ensureIndexIsVisible(selectedIndex + 1);
@@ -543,7 +563,7 @@ public class BoardForm {
                 int selectedIndex = jList.getSelectedIndex();
                 String currentBoardDisplayName = comboBoxBoards.getSelectedItem().toString();
                 if (selectedIndex != -1 && !"Boards".equals(currentBoardDisplayName)) {
-                    String selectedToDoTitle = listModel.getElementAt(selectedIndex);
+                    String selectedToDoTitle = listModel.getElementAt(selectedIndex).getTitle();
 
                     int confirmResult = JOptionPane.showConfirmDialog(frameBoardForm,
                             "Are you sure you want to delete '" + selectedToDoTitle + "'?",
@@ -551,16 +571,24 @@ public class BoardForm {
                             JOptionPane.YES_NO_OPTION);
 
                     if (confirmResult == JOptionPane.YES_OPTION) {
-                        controller.deleteToDo(currentBoardDisplayName, selectedToDoTitle);
-                        listModel.remove(selectedIndex);
-
-                        jList.clearSelection();
-                        MoveUp.setEnabled(false);
-                        MoveDown.setEnabled(false);
-                        deleteToDo.setEnabled(false);
-                        changeBoard.setEnabled(false);
-                        jList.repaint();
-                        JOptionPane.showMessageDialog(frameBoardForm, "'" + selectedToDoTitle + "' deleted successfully.");
+                        ToDo selectedToDo = listModel.getElementAt(selectedIndex);
+                        track(asyncController.deleteToDo(currentBoardDisplayName, selectedToDoTitle))
+                                .whenComplete((result, ex) -> {
+                                    if (ex != null) {
+                                        showDatabaseError("deleting '" + selectedToDoTitle + "'", ex);
+                                        return;
+                                    }
+                                    // Il controller segnala gli errori lasciando il ToDo nella board
+                                    if (controller.getToDoList(currentBoardDisplayName).contains(selectedToDo)) {
+                                        JOptionPane.showMessageDialog(frameBoardForm, "Failed to delete '" + selectedToDoTitle + "'.", "Error", JOptionPane.ERROR_MESSAGE);
+                                        return;
+                                    }
+                                    listModel.removeElement(selectedToDo);
+
+                                    jList.clearSelection();
+                                    jList.repaint();
+                                    JOptionPane.showMessageDialog(frameBoardForm, "'" + selectedToDoTitle + "' deleted successfully.");
+                                });
                     }
                 } else {
                     JOptionPane.showMessageDialog(frameBoardForm, "Please select a ToDo to delete and ensure a board is selected.", "No ToDo Selected", JOptionPane.WARNING_MESSAGE);
@@ -581,7 +609,7 @@ public class BoardForm {
                 int selectedIndex = jList.getSelectedIndex();
                 String currentBoardDisplayName = comboBoxBoards.getSelectedItem().toString();
                 if (selectedIndex != -1 && !"Boards".equals(currentBoardDisplayName)) {
-                    String selectedToDoTitle = listModel.getElementAt(selectedIndex);
+                    String selectedToDoTitle = listModel.getElementAt(selectedIndex).getTitle();
 
                     ArrayList<String> availableBoardDisplayNames = new ArrayList<>();
                     for (BoardName name : BoardName.values()) {
@@ -607,20 +635,20 @@ public class BoardForm {
                             boardOptions[0]);
 
                     if (destinationBoardString != null) {
-                        boolean moved = controller.moveToDo(selectedToDoTitle, currentBoardDisplayName, destinationBoardString);
-
-                        if (moved) {
-                            listModel.remove(selectedIndex);
-                            jList.clearSelection();
-                            MoveUp.setEnabled(false);
-                            MoveDown.setEnabled(false);
-                            deleteToDo.setEnabled(false);
-                            changeBoard.setEnabled(false);
-                            jList.repaint();
-                            JOptionPane.showMessageDialog(frameBoardForm, "'" + selectedToDoTitle + "' moved successfully to " + destinationBoardString + " board.");
-                        } else {
-                            JOptionPane.showMessageDialog(frameBoardForm, "Failed to move '" + selectedToDoTitle + "'.", "Error", JOptionPane.ERROR_MESSAGE);
-                        }
+                        ToDo selectedToDo = listModel.getElementAt(selectedIndex);
+                        track(asyncController.moveToDo(selectedToDoTitle, currentBoardDisplayName, destinationBoardString))
+                                .whenComplete((moved, ex) -> {
+                                    if (ex != null) {
+                                        showDatabaseError("moving '" + selectedToDoTitle + "'", ex);
+                                    } else if (moved) {
+                                        listModel.removeElement(selectedToDo);
+                                        jList.clearSelection();
+                                        jList.repaint();
+                                        JOptionPane.showMessageDialog(frameBoardForm, "'" + selectedToDoTitle + "' moved successfully to " + destinationBoardString + " board.");
+                                    } else {
+                                        JOptionPane.showMessageDialog(frameBoardForm, "Failed to move '" + selectedToDoTitle + "'.", "Error", JOptionPane.ERROR_MESSAGE);
+                                    }
+                                });
                     }
                 } else {
                     JOptionPane.showMessageDialog(frameBoardForm, "Please select a ToDo to move and ensure a board is selected.", "No ToDo Selected", JOptionPane.WARNING_MESSAGE);
@@ -696,6 +724,102 @@ public class BoardForm {
         return null;
     }
 
+    /**
+     * Abilita i pulsanti che modificano le board in base alla selezione corrente,
+     * disabilitandoli tutti finché è in corso un'operazione in background.
+     */
+    private void updateActionButtons() {
+        boolean idle = requestsInFlight == 0;
+        boolean boardSelected = !"Boards".equals(comboBoxBoards.getSelectedItem().toString());
+        int selectedIndex = jList.getSelectedIndex();
+        boolean isSelected = selectedIndex != -1;
+        MoveUp.setEnabled(idle && isSelected && selectedIndex > 0);
+        MoveDown.setEnabled(idle && isSelected && selectedIndex < listModel.getSize() - 1);
+        deleteToDo.setEnabled(idle && isSelected);
+        changeBoard.setEnabled(idle && isSelected);
+        addToDo.setEnabled(idle && boardSelected);
+    }
+
+    /**
+     * Registra un'operazione in background: i pulsanti che modificano le board restano
+     * disabilitati fino al suo completamento, con o senza errori.
+     *
+     * @param request il future dell'operazione
+     * @return un future completato come quello dell'operazione, dopo aver riabilitato i pulsanti
+     */
+    private <T> CompletableFuture<T> track(CompletableFuture<T> request) {
+        requestsInFlight++;
+        updateActionButtons();
+        return request.whenComplete((result, ex) -> {
+            requestsInFlight--;
+            updateActionButtons();
+        });
+    }
+
+    /**
+     * Mostra l'errore di un'operazione in background.
+     *
+     * @param action descrizione dell'operazione fallita
+     * @param ex l'errore con cui è stato completato il future dell'operazione
+     */
+    private void showDatabaseError(String action, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        System.err.println("Error " + action + ": " + cause.getMessage());
+        JOptionPane.showMessageDialog(frameBoardForm,
+                "Database error " + action + ": " + cause.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Carica la pagina successiva dei ToDo della board selezionata quando la lista è
+     * a meno di una schermata dal fondo, poi legge in anticipo quella dopo.
+     * Le pagine vengono aggiunte in coda alla lista, oppure con i filtri attivi la lista viene rifiltrata.
+     */
+    private void requestNextPageIfNeeded() {
+        if (pageRequestInFlight) {
+            return;
+        }
+        String selectedBoardDisplayName = comboBoxBoards.getSelectedItem().toString();
+        BoardName boardNameEnum = getBoardNameFromDisplayName(selectedBoardDisplayName);
+        if (boardNameEnum == null) {
+            return;
+        }
+        Board board = controller.user.getBoard(boardNameEnum);
+        if (board == null || !board.hasMorePages()) {
+            return;
+        }
+        JScrollBar scrollBar = ScrollPanel.getVerticalScrollBar();
+        int remaining = scrollBar.getMaximum() - scrollBar.getValue() - scrollBar.getVisibleAmount();
+        if (remaining > scrollBar.getVisibleAmount()) {
+            return;
+        }
+
+        pageRequestInFlight = true;
+        track(asyncController.loadNextToDoPage(selectedBoardDisplayName))
+                .whenComplete((page, error) -> {
+                    pageRequestInFlight = false;
+                    if (error != null) {
+                        System.err.println("WARN: Could not load the next page of board '" + selectedBoardDisplayName + "': " + error.getMessage());
+                        return;
+                    }
+                    // La board selezionata potrebbe essere cambiata durante il caricamento
+                    if (!selectedBoardDisplayName.equals(comboBoxBoards.getSelectedItem().toString())) {
+                        return;
+                    }
+                    boolean filtered = highlightDate != null || !textFieldSearchTitle.getText().isEmpty()
+                            || (dateChooserSearchDate != null && dateChooserSearchDate.getDate() != null);
+                    if (filtered) {
+                        filterToDoList();
+                    } else {
+                        listModel.addAll(page);
+                    }
+                    track(asyncController.prefetchToDoPage(selectedBoardDisplayName));
+                    // Se la lista non riempie ancora la schermata serve un'altra pagina
+                    SwingUtilities.invokeLater(this::requestNextPageIfNeeded);
+                });
+    }
+
     /**
      * Filtra la lista dei ToDo in base al testo di ricerca e alla data selezionata.
      * Applica contemporaneamente filtri per titolo e data di scadenza.
@@ -708,7 +832,7 @@ public class BoardForm {
             return;
         }
 
-        String searchText = textFieldSearchTitle.getText().toLowerCase();
+        String searchText = textFieldSearchTitle.getText();
         BoardName boardNameEnum = getBoardNameFromDisplayName(selectedBoardDisplayName);
         if (boardNameEnum == null) {
             listModel.clear();
@@ -716,27 +840,31 @@ public class BoardForm {
             return;
         }
 
-        List<ToDo> todosInCurrentBoard = controller.user.getBoard(boardNameEnum).getTodoList();
-        listModel.clear();
-
-        for (ToDo todo : todosInCurrentBoard) {
-            // Filtro per titolo
-            boolean matchesTitle = todo.getTitle().toLowerCase().contains(searchText);
-
-            // Filtro per data
-            boolean matchesDate = true;
-            if (highlightDate != null) {
-                matchesDate = (todo.getDueDate() != null && todo.getDueDate().equals(highlightDate));
-            } else if (dateChooserSearchDate.getDate() != null) {
-                LocalDate selectedDateFromChooser = dateChooserSearchDate.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                matchesDate = (todo.getDueDate() != null && todo.getDueDate().equals(selectedDateFromChooser));
-            }
+        Board board = controller.user.getBoard(boardNameEnum);
+        LocalDate dateFilter = highlightDate;
+        if (dateFilter == null && dateChooserSearchDate.getDate() != null) {
+            dateFilter = dateChooserSearchDate.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        }
 
-            if (matchesTitle && matchesDate) {
-                listModel.addElement(todo.getTitle());
+        List<ToDo> matches;
+        if (dateFilter == null) {
+            // Filtro per titolo tramite l'indice della board
+            matches = board.searchByTitle(searchText);
+        } else {
+            // Filtro per data tramite l'indice delle scadenze, poi per titolo sui soli ToDo in scadenza
+            String needle = searchText.toLowerCase(Locale.ROOT);
+            matches = new ArrayList<>();
+            for (ToDo todo : board.getTodosDueOn(dateFilter)) {
+                if (todo.getTitle().toLowerCase(Locale.ROOT).contains(needle)) {
+                    matches.add(todo);
+                }
             }
         }
 
+        // Sostituisce il contenuto del modello con un solo evento per la lista
+        listModel.clear();
+        listModel.addAll(matches);
+
         jList.clearSelection();
         MoveUp.setEnabled(false);
         MoveDown.setEnabled(false);
@@ -814,12 +942,15 @@ public class BoardForm {
      * Custom renderer per celle di lista che visualizza elementi ToDo con colorazione condizionale.
      * Estende DefaultListCellRenderer per fornire rendering personalizzato basato sullo stato
      * del ToDo, date di scadenza e selezioni dell'utente.
+     * <p>
+     * Il modello della lista contiene direttamente i ToDo, quindi il rendering di una riga
+     * non richiede ricerche né allocazioni.
      */
     public class ToDoListCellRenderer extends DefaultListCellRenderer {
         /**
-         * Controller per accedere ai dati dei ToDo
+         * Colore di sfondo dei ToDo con scadenza nella data evidenziata (verde chiaro)
          */
-        private Controller controller;
+        private static final Color HIGHLIGHT_BACKGROUND = new Color(200, 255, 200);
 
         /**
          * Nome del board attualmente visualizzato
@@ -831,15 +962,23 @@ public class BoardForm {
          */
         private BoardForm boardForm;
 
+        /**
+         * Data odierna, ricalcolata solo allo scoccare della mezzanotte
+         */
+        private LocalDate today;
+
+        /**
+         * Istante (in millisecondi) della prossima mezzanotte, oltre il quale {@link #today} va aggiornata
+         */
+        private long nextMidnightMillis;
+
         /**
          * Costruttore per inizializzare il renderer con le dipendenze necessarie.
          *
-         * @param controller              il controller per accedere ai dati dei ToDo
          * @param initialBoardDisplayName il nome iniziale del board da visualizzare
          * @param boardForm               il form del board contenente le impostazioni di evidenziazione
          */
-        public ToDoListCellRenderer(Controller controller, String initialBoardDisplayName, BoardForm boardForm) {
-            this.controller = controller;
+        public ToDoListCellRenderer(String initialBoardDisplayName, BoardForm boardForm) {
             this.currentBoardDisplayName = initialBoardDisplayName;
             this.boardForm = boardForm;
         }
@@ -862,7 +1001,7 @@ public class BoardForm {
          * - Colori di selezione: Quando la cella è selezionata
          *
          * @param list         la JList che contiene l'elemento
-         * @param value        l'oggetto da renderizzare (dovrebbe essere una String con il titolo del ToDo)
+         * @param value        l'oggetto da renderizzare (il ToDo della riga)
          * @param index        l'indice dell'elemento nella lista
          * @param isSelected   true se l'elemento è selezionato
          * @param cellHasFocus true se la cella ha il focus
@@ -870,37 +1009,33 @@ public class BoardForm {
          */
         @Override
         public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            // Pass the title, not the ToDo, so the base renderer does not call Object.toString on it
+            ToDo toDo = value instanceof ToDo ? (ToDo) value : null;
+            String title = toDo != null ? toDo.getTitle() : "";
+
             // Ottiene il renderer di base
-            JLabel renderer = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            JLabel renderer = (JLabel) super.getListCellRendererComponent(list, title, index, isSelected, cellHasFocus);
 
             // Imposta colori di default
             renderer.setForeground(list.getForeground());
             renderer.setBackground(list.getBackground());
 
-            // Non applica colorazione speciale se non c'è un board selezionato o è il board principale
-            if (currentBoardDisplayName == null || "Boards".equals(currentBoardDisplayName)) {
+            if (toDo == null) {
                 return renderer;
             }
 
-            // Processa solo se il valore è una stringa (titolo del ToDo)
-            if (value instanceof String) {
-                String toDoTitle = (String) value;
-
-                // Recupera l'oggetto ToDo completo tramite il controller
-                ToDo toDo = controller.getToDoByTitle(toDoTitle, currentBoardDisplayName);
-
-                if (toDo != null) {
+            // Applica la colorazione speciale solo se è selezionato un board
+            if (currentBoardDisplayName != null && !"Boards".equals(currentBoardDisplayName)) {
+                LocalDate dueDate = toDo.getDueDate();
+                if (dueDate != null) {
                     // Evidenzia in rosso i ToDo scaduti e non completati
-                    if (toDo.getDueDate() != null) {
-                        LocalDate today = LocalDate.now();
-                        if (toDo.getDueDate().isBefore(today) && !"Completo".equals(toDo.getStatus()) && !"Complete".equals(toDo.getStatus())) {
-                            renderer.setForeground(Color.RED);
-                        }
+                    if (dueDate.isBefore(today()) && !toDo.isComplete()) {
+                        renderer.setForeground(Color.RED);
                     }
 
                     // Evidenzia con sfondo verde chiaro i ToDo con data corrispondente alla data evidenziata
-                    if (boardForm.highlightDate != null && toDo.getDueDate() != null && toDo.getDueDate().equals(boardForm.highlightDate)) {
-                        renderer.setBackground(new Color(200, 255, 200)); // Verde chiaro
+                    if (dueDate.equals(boardForm.highlightDate)) {
+                        renderer.setBackground(HIGHLIGHT_BACKGROUND);
                     }
                 }
             }
@@ -913,5 +1048,16 @@ public class BoardForm {
 
             return renderer;
         }
+
+        /**
+         * @return la data odierna, ricalcolata solo dopo la mezzanotte
+         */
+        private LocalDate today() {
+            if (System.currentTimeMillis() >= nextMidnightMillis) {
+                today = LocalDate.now();
+                nextMidnightMillis = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            return today;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package gui;
 
+import controller.AsyncController;
 import controller.Controller;
 import javax.swing.*;
 import java.awt.event.WindowAdapter;
@@ -30,16 +31,20 @@ public class RegisterForm {
     /** Controller per gestire la logica di business della registrazione */
     private Controller controller;
 
+    /** Facciata asincrona del controller per le operazioni sul database */
+    private AsyncController asyncController;
+
     /**
      * Costruttore della classe RegisterForm.
      * Inizializza l'interfaccia grafica, configura il frame e imposta i listener
      * per la gestione degli eventi.
      *
      * @param parent Il frame genitore da cui viene aperta questa finestra
-     * @param c Il controller che gestisce la logica di registrazione
+     * @param c Il controller asincrono che gestisce la logica di registrazione
      */
-    public RegisterForm(JFrame parent, Controller c){
-        this.controller = c;
+    public RegisterForm(JFrame parent, AsyncController c){
+        this.asyncController = c;
+        this.controller = c.getController();
         this.frame = parent;
 
         frameRegisterForm=new JFrame("Registrazione");
@@ -85,22 +90,25 @@ public class RegisterForm {
                     JOptionPane.ERROR_MESSAGE);
         }
         else{
-            // Tentativo di registrazione tramite controller
-            controller.register(username, password);
-
-            if (controller.user != null) {
-                // Registrazione riuscita: nasconde il form corrente e apre la board
-                frameRegisterForm.setVisible(false);
-
-                BoardForm boardForm = new BoardForm(frameRegisterForm, controller);
-                boardForm.frameBoardForm.setVisible(true);
-            } else {
-                // Registrazione fallita: mostra messaggio di errore
-                JOptionPane.showMessageDialog(frameRegisterForm,
-                        "Registration failed. Username might already exist or a database error occurred.",
-                        "Registration Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            // Tentativo di registrazione tramite controller, eseguito in background
+            registerButton.setEnabled(false);
+            asyncController.register(username, password)
+                    .thenAccept(registeredUser -> {
+                        if (registeredUser != null) {
+                            // Registrazione riuscita: nasconde il form corrente e apre la board
+                            frameRegisterForm.setVisible(false);
+
+                            BoardForm boardForm = new BoardForm(frameRegisterForm, asyncController);
+                            boardForm.frameBoardForm.setVisible(true);
+                        } else {
+                            // Registrazione fallita: mostra messaggio di errore
+                            JOptionPane.showMessageDialog(frameRegisterForm,
+                                    "Registration failed. Username might already exist or a database error occurred.",
+                                    "Registration Error",
+                                    JOptionPane.ERROR_MESSAGE);
+                        }
+                    })
+                    .whenComplete((result, ex) -> registerButton.setEnabled(true));
         }
     }
 }
@@ -1,9 +1,13 @@
 package gui;
 
+import controller.AsyncController;
 import controller.Controller;
+import dao.UserSummary;
 import models.ToDo;
 import models.User;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.net.URI;
@@ -14,8 +18,11 @@ import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Classe che rappresenta il form per la creazione e modifica dei ToDo.
@@ -86,6 +93,9 @@ public class ToDoForm {
     /** Riferimento al controller principale */
     private Controller controller;
 
+    /** Facciata asincrona del controller per le operazioni sul database */
+    private AsyncController asyncController;
+
     /** ToDo correntemente in modifica (null per nuovi ToDo) */
     private ToDo currentToDo;
 
@@ -98,18 +108,25 @@ public class ToDoForm {
     /** Indice dell'immagine correntemente selezionata */
     private int currentImageIndex = 0;
 
+    /** Numero di utenti letti per pagina nella finestra di condivisione */
+    private static final int SHARE_PAGE_SIZE = 50;
+
+    /** Ritardo, in millisecondi, tra l'ultimo tasto premuto nella ricerca utenti e la query */
+    private static final int USER_SEARCH_DEBOUNCE_MILLIS = 200;
+
     /**
      * Costruttore della classe ToDoForm.
      * Inizializza il form per la creazione o modifica di un ToDo.
      *
      * @param parent Il frame parent da cui viene aperto questo form
-     * @param c Il controller principale dell'applicazione
+     * @param c Il controller asincrono dell'applicazione
      * @param cu Il nome della board corrente
      * @param toDoToEdit Il ToDo da modificare (null per creare un nuovo ToDo)
      */
-    public ToDoForm(JFrame parent, Controller c, String cu, ToDo toDoToEdit){
+    public ToDoForm(JFrame parent, AsyncController c, String cu, ToDo toDoToEdit){
         this.frame = parent;
-        this.controller = c;
+        this.asyncController = c;
+        this.controller = c.getController();
         this.currentBoard = cu;
         this.currentToDo = toDoToEdit;
 
@@ -125,7 +142,7 @@ public class ToDoForm {
             public void windowClosing(WindowEvent e) {
                 if (BoardForm.listModel != null) {
                     BoardForm.listModel.clear();
-                    BoardForm.listModel.addAll(controller.getToDoListString(currentBoard));
+                    BoardForm.listModel.addAll(controller.getToDoList(currentBoard));
                 }
                 frame.setVisible(true);
                 frameToDoForm.dispose();
@@ -425,20 +442,31 @@ public class ToDoForm {
         String selectedColor = (String) colorChange.getSelectedItem();
         String selectedImageName = imageNames[currentImageIndex];
 
-        // Creazione o aggiornamento del ToDo
+        // Creazione o aggiornamento del ToDo, eseguiti in background
+        CompletableFuture<Void> saved;
         if (currentToDo == null) {
-            createNewToDo(title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, owner);
+            saved = createNewToDo(title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, owner);
         } else {
-            updateExistingToDo(title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, dueDate);
+            saved = updateExistingToDo(title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, dueDate);
         }
 
-        // Aggiornamento della lista nella BoardForm
-        updateBoardFormList();
+        setSharingEnabled(false);
+        saved.whenComplete((result, ex) -> {
+            if (ex != null) {
+                showDatabaseError("saving ToDo", ex);
+                setSharingEnabled(currentToDo != null);
+                buttonSave.setEnabled(true);
+                return;
+            }
 
-        // Chiusura del form
-        frame.setVisible(true);
-        frameToDoForm.setVisible(false);
-        frameToDoForm.dispose();
+            // Aggiornamento della lista nella BoardForm
+            updateBoardFormList();
+
+            // Chiusura del form
+            frame.setVisible(true);
+            frameToDoForm.setVisible(false);
+            frameToDoForm.dispose();
+        });
     }
 
     /**
@@ -453,25 +481,28 @@ public class ToDoForm {
      * @param activitiesMap Mappa delle attività con il loro stato
      * @param calculatedStatus Status calcolato del ToDo
      * @param owner Proprietario del ToDo
+     * @return future completato sull'Event Dispatch Thread al termine del salvataggio
      */
-    private void createNewToDo(String title, String description, String dueDateString, String url,
+    private CompletableFuture<Void> createNewToDo(String title, String description, String dueDateString, String url,
                                String selectedColor, String selectedImageName, Map<String, Boolean> activitiesMap,
                                String calculatedStatus, String owner) {
-        String newToDoId = controller.addToDo(currentBoard, title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, owner);
-        if (newToDoId != null) {
-            currentToDo = controller.getToDoByTitle(title, currentBoard);
-            if (currentToDo != null) {
-                JOptionPane.showMessageDialog(frameToDoForm, "ToDo added successfully.");
-                shareToDo.setEnabled(true);
-                changeSharing.setEnabled(true);
-                membersToDo.setEnabled(true);
-                populateMembersComboBox();
-            } else {
-                JOptionPane.showMessageDialog(frameToDoForm, "Failed to retrieve newly created ToDo.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        } else {
-            JOptionPane.showMessageDialog(frameToDoForm, "Failed to add ToDo.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        return asyncController.addToDo(currentBoard, title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, owner)
+                .thenAccept(newToDoId -> {
+                    if (newToDoId != null) {
+                        currentToDo = controller.getToDoByTitle(title, currentBoard);
+                        if (currentToDo != null) {
+                            JOptionPane.showMessageDialog(frameToDoForm, "ToDo added successfully.");
+                            shareToDo.setEnabled(true);
+                            changeSharing.setEnabled(true);
+                            membersToDo.setEnabled(true);
+                            populateMembersComboBox();
+                        } else {
+                            JOptionPane.showMessageDialog(frameToDoForm, "Failed to retrieve newly created ToDo.", "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    } else {
+                        JOptionPane.showMessageDialog(frameToDoForm, "Failed to add ToDo.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
     }
 
     /**
@@ -486,28 +517,19 @@ public class ToDoForm {
      * @param activitiesMap Nuova mappa delle attività con il loro stato
      * @param calculatedStatus Nuovo status calcolato del ToDo
      * @param dueDate Nuova data di scadenza come oggetto LocalDate
+     * @return future completato sull'Event Dispatch Thread al termine del salvataggio
      */
-    private void updateExistingToDo(String title, String description, String dueDateString, String url,
+    private CompletableFuture<Void> updateExistingToDo(String title, String description, String dueDateString, String url,
                                     String selectedColor, String selectedImageName, Map<String, Boolean> activitiesMap,
                                     String calculatedStatus, LocalDate dueDate) {
         if (!controller.isCurrentUserToDoCreator(currentToDo)) {
             JOptionPane.showMessageDialog(frameToDoForm, "You can only edit ToDos you created.", "Permission Denied", JOptionPane.WARNING_MESSAGE);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         String oldTitle = currentToDo.getTitle();
-        controller.updateToDo(currentBoard, oldTitle, title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, currentToDo.getOwner());
-
-        // Aggiornamento dell'oggetto currentToDo
-        currentToDo.setTitle(title);
-        currentToDo.setDescription(description);
-        currentToDo.setDueDate(dueDate);
-        currentToDo.setUrl(url);
-        currentToDo.setActivityList(activitiesMap);
-        currentToDo.setColor(selectedColor);
-        currentToDo.setImage(selectedImageName);
-
-        JOptionPane.showMessageDialog(frameToDoForm, "ToDo updated successfully.");
+        return asyncController.updateToDo(currentBoard, oldTitle, title, description, dueDateString, url, selectedColor, selectedImageName, activitiesMap, calculatedStatus, currentToDo.getOwner())
+                .thenRun(() -> JOptionPane.showMessageDialog(frameToDoForm, "ToDo updated successfully."));
     }
 
     /**
@@ -531,7 +553,7 @@ public class ToDoForm {
     private void updateBoardFormList() {
         if (BoardForm.listModel != null) {
             BoardForm.listModel.clear();
-            BoardForm.listModel.addAll(controller.getToDoListString(currentBoard));
+            BoardForm.listModel.addAll(controller.getToDoList(currentBoard));
         } else {
             System.err.println("BoardForm.listModel is null. Cannot update the list.");
         }
@@ -559,10 +581,6 @@ public class ToDoForm {
             panelActivity.add(checkBox);
             panelActivity.revalidate();
             panelActivity.repaint();
-
-            if (currentToDo != null) {
-                currentToDo.addActivity(label);
-            }
         }
         checkCompletionStatus();
     }
@@ -600,9 +618,6 @@ public class ToDoForm {
         if (confirmResult == JOptionPane.YES_OPTION) {
             for (JCheckBox cb : selectedCheckBoxes) {
                 panelActivity.remove(cb);
-                if (currentToDo != null) {
-                    currentToDo.deleteActivity(cb.getText());
-                }
             }
             panelActivity.revalidate();
             panelActivity.repaint();
@@ -613,7 +628,8 @@ public class ToDoForm {
 
     /**
      * Gestisce la condivisione del ToDo con altri utenti.
-     * Mostra una finestra di dialogo per selezionare gli utenti con cui condividere il ToDo.
+     * Mostra una finestra di dialogo con ricerca per prefisso dell'username: gli utenti vengono
+     * letti una pagina alla volta mentre si digita o si scorre la lista, invece di caricarli tutti.
      */
     private void shareToDoWithUsers() {
         if (currentToDo == null) {
@@ -625,53 +641,178 @@ public class ToDoForm {
             return;
         }
 
-        Set<User> allUsers = controller.getAllUsers();
+        // Raccolta degli utenti che già hanno accesso, da non proporre
         Set<String> alreadySharedUsernames = new HashSet<>();
-
-        // Raccolta degli utenti che già hanno accesso
-        for(User u : currentToDo.getUsers()){
+        for (User u : currentToDo.getUsers()) {
             alreadySharedUsernames.add(u.getUsername());
         }
         alreadySharedUsernames.add(currentToDo.getOwner());
 
-        // Creazione della lista degli utenti disponibili
-        java.util.List<String> availableUsers = new ArrayList<>();
-        for (User user : allUsers) {
-            if (!alreadySharedUsernames.contains(user.getUsername())) {
-                availableUsers.add(user.getUsername());
+        UserSearch userSearch = new UserSearch(alreadySharedUsernames);
+        JTextField searchField = new JTextField();
+        Timer searchDebounceTimer = new Timer(USER_SEARCH_DEBOUNCE_MILLIS, e -> userSearch.restart(searchField.getText().trim()));
+        searchDebounceTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
             }
-        }
 
-        if (availableUsers.isEmpty()) {
-            JOptionPane.showMessageDialog(frameToDoForm, "No other users available to share with.", "No Users", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
+            public void removeUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+            }
 
-        // Creazione e configurazione della finestra di selezione
-        String[] userChoices = availableUsers.toArray(new String[0]);
-        JList<String> userList = new JList<>(userChoices);
-        userList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+            public void changedUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+            }
+        });
 
-        JScrollPane scrollPane = new JScrollPane(userList);
-        scrollPane.setPreferredSize(new Dimension(200, 150));
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.add(searchField, BorderLayout.NORTH);
+        panel.add(userSearch.scrollPane, BorderLayout.CENTER);
+        panel.add(userSearch.selectionLabel, BorderLayout.SOUTH);
+        userSearch.restart("");
 
-        int option = JOptionPane.showConfirmDialog(frameToDoForm, scrollPane, "Select Users to Share With", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        int option = JOptionPane.showConfirmDialog(frameToDoForm, panel, "Select Users to Share With", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        searchDebounceTimer.stop();
+        userSearch.cancel();
 
         if (option == JOptionPane.OK_OPTION) {
-            java.util.List<String> selectedUsernames = userList.getSelectedValuesList();
+            java.util.List<String> selectedUsernames = new ArrayList<>(userSearch.selectedUsernames);
             if (selectedUsernames.isEmpty()) {
                 JOptionPane.showMessageDialog(frameToDoForm, "No users selected for sharing.", "No Selection", JOptionPane.INFORMATION_MESSAGE);
                 return;
             }
 
-            boolean success = controller.shareToDoWithUsers(currentToDo, selectedUsernames, controller.user.getUsername());
-            if (success) {
-                JOptionPane.showMessageDialog(frameToDoForm, "ToDo shared successfully with selected users.");
-                populateMembersComboBox();
-            } else {
-                JOptionPane.showMessageDialog(frameToDoForm, "Failed to share ToDo.", "Error", JOptionPane.ERROR_MESSAGE);
+            setSharingEnabled(false);
+            asyncController.shareToDoWithUsers(currentToDo, selectedUsernames, controller.user.getUsername())
+                    .whenComplete((success, ex) -> {
+                        setSharingEnabled(true);
+                        if (ex != null) {
+                            showDatabaseError("sharing ToDo", ex);
+                        } else if (success) {
+                            JOptionPane.showMessageDialog(frameToDoForm, "ToDo shared successfully with selected users.");
+                            populateMembersComboBox();
+                        } else {
+                            JOptionPane.showMessageDialog(frameToDoForm, "Failed to share ToDo.", "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Lista degli utenti della finestra di condivisione, filtrata per prefisso e caricata a pagine.
+     * Gli utenti selezionati restano selezionati anche cambiando il testo della ricerca.
+     */
+    private final class UserSearch {
+        private final Set<String> excludedUsernames;
+        private final Set<String> selectedUsernames = new LinkedHashSet<>();
+        private final DefaultListModel<String> listModel = new DefaultListModel<>();
+        private final JList<String> userList = new JList<>(listModel);
+        private final JScrollPane scrollPane = new JScrollPane(userList);
+        private final JLabel selectionLabel = new JLabel("Selected: none");
+
+        private String prefix = "";
+        private String lastUsername;
+        private boolean exhausted;
+        private boolean loading;
+
+        /** Incrementato ad ogni nuova ricerca, per scartare le risposte arrivate in ritardo */
+        private int generation;
+
+        /** True mentre la selezione della lista viene aggiornata dal codice e non dall'utente */
+        private boolean syncingSelection;
+
+        private UserSearch(Set<String> excludedUsernames) {
+            this.excludedUsernames = excludedUsernames;
+            userList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+            scrollPane.setPreferredSize(new Dimension(200, 150));
+            userList.addListSelectionListener(e -> {
+                if (e.getValueIsAdjusting() || syncingSelection) {
+                    return;
+                }
+                for (int i = 0; i < listModel.getSize(); i++) {
+                    if (userList.isSelectedIndex(i)) {
+                        selectedUsernames.add(listModel.getElementAt(i));
+                    } else {
+                        selectedUsernames.remove(listModel.getElementAt(i));
+                    }
+                }
+                selectionLabel.setText("Selected: " + (selectedUsernames.isEmpty() ? "none" : String.join(", ", selectedUsernames)));
+            });
+            scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNeeded());
+        }
+
+        /**
+         * Avvia una nuova ricerca, svuotando la lista.
+         */
+        private void restart(String newPrefix) {
+            generation++;
+            prefix = newPrefix;
+            lastUsername = null;
+            exhausted = false;
+            loading = false;
+            syncingSelection = true;
+            listModel.clear();
+            syncingSelection = false;
+            loadMore();
+        }
+
+        /**
+         * Scarta le risposte ancora in arrivo, alla chiusura della finestra.
+         */
+        private void cancel() {
+            generation++;
+        }
+
+        /**
+         * Carica la pagina successiva quando la lista è a meno di una schermata dal fondo.
+         */
+        private void loadMoreIfNeeded() {
+            JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+            int remaining = scrollBar.getMaximum() - scrollBar.getValue() - scrollBar.getVisibleAmount();
+            if (remaining <= scrollBar.getVisibleAmount()) {
+                loadMore();
             }
         }
+
+        private void loadMore() {
+            if (loading || exhausted) {
+                return;
+            }
+            loading = true;
+            int requestGeneration = generation;
+            asyncController.searchUsers(prefix, lastUsername, SHARE_PAGE_SIZE)
+                    .whenComplete((page, ex) -> {
+                        if (requestGeneration != generation) {
+                            return;
+                        }
+                        loading = false;
+                        if (ex != null) {
+                            // La pagina verrà richiesta di nuovo al prossimo scorrimento della lista
+                            showDatabaseError("searching users", ex);
+                            return;
+                        }
+                        exhausted = page.size() < SHARE_PAGE_SIZE;
+                        if (!page.isEmpty()) {
+                            lastUsername = page.get(page.size() - 1).getUsername();
+                        }
+
+                        syncingSelection = true;
+                        for (UserSummary user : page) {
+                            if (!excludedUsernames.contains(user.getUsername())) {
+                                listModel.addElement(user.getUsername());
+                                if (selectedUsernames.contains(user.getUsername())) {
+                                    int index = listModel.getSize() - 1;
+                                    userList.addSelectionInterval(index, index);
+                                }
+                            }
+                        }
+                        syncingSelection = false;
+
+                        // Se la lista non riempie ancora la finestra serve un'altra pagina
+                        SwingUtilities.invokeLater(this::loadMoreIfNeeded);
+                    });
+        }
     }
 
     /**
@@ -715,16 +856,46 @@ public class ToDoForm {
                 return;
             }
 
-            boolean success = controller.removeToDoSharing(currentToDo, selectedUsernames);
-            if (success) {
-                JOptionPane.showMessageDialog(frameToDoForm, "Sharing revoked successfully for selected users.");
-                populateMembersComboBox();
-            } else {
-                JOptionPane.showMessageDialog(frameToDoForm, "Failed to revoke sharing.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            setSharingEnabled(false);
+            asyncController.removeToDoSharing(currentToDo, selectedUsernames)
+                    .whenComplete((success, ex) -> {
+                        setSharingEnabled(true);
+                        if (ex != null) {
+                            showDatabaseError("revoking sharing", ex);
+                        } else if (success) {
+                            JOptionPane.showMessageDialog(frameToDoForm, "Sharing revoked successfully for selected users.");
+                            populateMembersComboBox();
+                        } else {
+                            JOptionPane.showMessageDialog(frameToDoForm, "Failed to revoke sharing.", "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         }
     }
 
+    /**
+     * Abilita o disabilita i pulsanti di condivisione, disabilitati mentre una modifica
+     * alle condivisioni è in corso in background.
+     *
+     * @param enabled true per abilitare i pulsanti
+     */
+    private void setSharingEnabled(boolean enabled) {
+        shareToDo.setEnabled(enabled);
+        changeSharing.setEnabled(enabled);
+        buttonSave.setEnabled(enabled);
+    }
+
+    /**
+     * Mostra l'errore di un'operazione in background.
+     *
+     * @param action descrizione dell'operazione fallita
+     * @param ex l'errore con cui è stato completato il future dell'operazione
+     */
+    private void showDatabaseError(String action, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        System.err.println("Error " + action + ": " + cause.getMessage());
+        JOptionPane.showMessageDialog(frameToDoForm, "Database error " + action + ": " + cause.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+    }
+
     /**
      * Popola la ComboBox dei membri con gli utenti che hanno accesso al ToDo.
      * Include il proprietario e tutti gli utenti con cui il ToDo è condiviso.
@@ -844,10 +1015,6 @@ public class ToDoForm {
         } else {
             statusField.setText("Incomplete");
         }
-
-        if (currentToDo != null) {
-            currentToDo.setStatus(statusField.getText());
-        }
     }
 
     /**
@@ -2,6 +2,7 @@ package gui;
 import controller.*;
 import models.User;
 import java.sql.SQLException;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -61,6 +62,12 @@ public class UserForm {
      */
     private Controller controller;
 
+    /**
+     * Facciata asincrona del controller, usata per le operazioni che accedono al database
+     * senza bloccare l'interfaccia grafica.
+     */
+    private AsyncController asyncController;
+
     /**
      * Metodo main che avvia l'applicazione inizializzando la form di login.
      *
@@ -103,6 +110,7 @@ public class UserForm {
     public UserForm(JFrame parentFrame) {
         try {
             this.controller = new Controller();
+            this.asyncController = new AsyncController(controller);
         } catch (SQLException e) {
             System.err.println("Error initializing Controller: " + e.getMessage());
             e.printStackTrace();
@@ -133,27 +141,33 @@ public class UserForm {
                 String username = usernameField1.getText();
                 String password = new String(passwordField1.getPassword());
 
-                try {
-                    User loggedInUser = controller.login(username, password);
-                    if (loggedInUser != null) {
-                        System.out.println("Login successful for user: " + loggedInUser.getUsername());
-                        frame.setVisible(false);
-                        BoardForm boardForm = new BoardForm(frame, controller);
-                        boardForm.frameBoardForm.setVisible(true);
-                    } else {
-                        JOptionPane.showMessageDialog(frame,
-                                "Invalid username or password.",
-                                "Login Error",
-                                JOptionPane.ERROR_MESSAGE);
-                        System.err.println("Login failed for user: " + username);
-                    }
-                } catch (SQLException ex) {
-                    JOptionPane.showMessageDialog(frame,
-                            "Database error during login: " + ex.getMessage(),
-                            "Database Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    ex.printStackTrace();
-                }
+                // Il caricamento dei dati avviene in background: il pulsante resta disattivato fino al termine
+                loginButton.setEnabled(false);
+                asyncController.login(username, password)
+                        .thenAccept(loggedInUser -> {
+                            if (loggedInUser != null) {
+                                System.out.println("Login successful for user: " + loggedInUser.getUsername());
+                                frame.setVisible(false);
+                                BoardForm boardForm = new BoardForm(frame, asyncController);
+                                boardForm.frameBoardForm.setVisible(true);
+                            } else {
+                                JOptionPane.showMessageDialog(frame,
+                                        "Invalid username or password.",
+                                        "Login Error",
+                                        JOptionPane.ERROR_MESSAGE);
+                                System.err.println("Login failed for user: " + username);
+                            }
+                        })
+                        .exceptionally(ex -> {
+                            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                            JOptionPane.showMessageDialog(frame,
+                                    "Database error during login: " + cause.getMessage(),
+                                    "Database Error",
+                                    JOptionPane.ERROR_MESSAGE);
+                            cause.printStackTrace();
+                            return null;
+                        })
+                        .whenComplete((result, ex) -> loginButton.setEnabled(true));
             }
         });
 
@@ -168,7 +182,7 @@ public class UserForm {
             @Override
             public void actionPerformed(ActionEvent e) {
                 frame.setVisible(false);
-                RegisterForm registerinterface = new RegisterForm(frame, controller);
+                RegisterForm registerinterface = new RegisterForm(frame, asyncController);
                 registerinterface.frameRegisterForm.setVisible(true);
             }
         });
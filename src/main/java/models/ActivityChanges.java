@@ -0,0 +1,70 @@
+package models;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Differenza tra le sotto-attività di un ToDo e l'ultimo stato salvato nel database.
+ * Contiene solo le attività aggiunte, rimosse o il cui stato di completamento è cambiato.
+ */
+public class ActivityChanges {
+    private final Map<String, Boolean> added;
+    private final Set<String> removed;
+    private final Map<String, Boolean> toggled;
+
+    private ActivityChanges(Map<String, Boolean> added, Set<String> removed, Map<String, Boolean> toggled) {
+        this.added = Collections.unmodifiableMap(added);
+        this.removed = Collections.unmodifiableSet(removed);
+        this.toggled = Collections.unmodifiableMap(toggled);
+    }
+
+    /**
+     * Calcola le differenze tra lo stato salvato e lo stato corrente delle attività.
+     * @param persisted Attività presenti nel database
+     * @param current Attività attuali del ToDo
+     * @return Le modifiche da applicare al database
+     */
+    public static ActivityChanges between(Map<String, Boolean> persisted, Map<String, Boolean> current) {
+        Map<String, Boolean> added = new HashMap<>();
+        Map<String, Boolean> toggled = new HashMap<>();
+        for (Map.Entry<String, Boolean> entry : current.entrySet()) {
+            if (!persisted.containsKey(entry.getKey())) {
+                added.put(entry.getKey(), entry.getValue());
+            } else if (!Objects.equals(persisted.get(entry.getKey()), entry.getValue())) {
+                toggled.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Set<String> removed = new HashSet<>();
+        for (String title : persisted.keySet()) {
+            if (!current.containsKey(title)) {
+                removed.add(title);
+            }
+        }
+        return new ActivityChanges(added, removed, toggled);
+    }
+
+    /** @return Attività nuove (titolo → completata?) */
+    public Map<String, Boolean> getAdded() {
+        return added;
+    }
+
+    /** @return Titoli delle attività eliminate */
+    public Set<String> getRemoved() {
+        return removed;
+    }
+
+    /** @return Attività esistenti con stato di completamento cambiato (titolo → nuovo stato) */
+    public Map<String, Boolean> getToggled() {
+        return toggled;
+    }
+
+    /** @return true se non ci sono modifiche da salvare */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && toggled.isEmpty();
+    }
+}
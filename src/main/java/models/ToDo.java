@@ -1,9 +1,16 @@
 package models;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -11,8 +18,34 @@ import java.util.UUID;
 /**
  * Rappresenta un'attività (ToDo) appartenente a una board, con informazioni
  * come titolo, descrizione, scadenza, stato e utenti con cui è condivisa.
+ *
+ * <p>Un ToDo può essere caricato in forma ridotta, senza descrizione, sotto-attività
+ * e utenti condivisi: questi dettagli vengono letti dalla {@link ToDoDetailsSource}
+ * al primo accesso, oppure in anticipo con {@link #loadDetails()}, e poi mantenuti in memoria.</p>
  */
 public class ToDo {
+
+    /**
+     * Campi modificabili del ToDo salvati nella tabella dei todo.
+     */
+    public enum Field {
+        TITLE, DESCRIPTION, STATUS, DUE_DATE, POSITION, OWNER, URL, IMAGE, COLOR
+    }
+
+    /**
+     * Osservatore delle modifiche ai campi di un ToDo, usato ad esempio dalle board
+     * per mantenere aggiornati i propri indici.
+     */
+    public interface ChangeListener {
+        /**
+         * Invocato dopo la modifica di un campo.
+         * @param toDo Il ToDo modificato
+         * @param field Il campo modificato
+         * @param oldValue Il valore precedente del campo
+         */
+        void onChange(ToDo toDo, Field field, Object oldValue);
+    }
+
     private UUID id;
     private String title;
     private String description;
@@ -27,6 +60,18 @@ public class ToDo {
     private Map<String, Boolean> activityList;
     private Set<User> sharedUsers;
 
+    /** Ultimo stato delle sotto-attività salvato nel database */
+    private Map<String, Boolean> persistedActivities = new HashMap<>();
+
+    /** Campi modificati dall'ultimo salvataggio nel database */
+    private final Set<Field> dirtyFields = EnumSet.noneOf(Field.class);
+
+    /** Osservatori delle modifiche ai campi */
+    private final List<ChangeListener> changeListeners = new ArrayList<>(1);
+
+    /** Sorgente dei dettagli non ancora caricati, null se i dettagli sono in memoria */
+    private ToDoDetailsSource detailsSource;
+
     /**
      * Crea un nuovo ToDo con titolo e proprietario specificati.
      * @param title Titolo dell'attività
@@ -73,11 +118,16 @@ public class ToDo {
      * @param title Nuovo titolo
      */
     public void setTitle(String title) {
-        this.title = title;
+        if (!Objects.equals(this.title, title)) {
+            String oldValue = this.title;
+            this.title = title;
+            fieldChanged(Field.TITLE, oldValue);
+        }
     }
 
     /** @return Descrizione dell'attività */
     public String getDescription() {
+        ensureDetailsLoaded();
         return description;
     }
 
@@ -86,7 +136,12 @@ public class ToDo {
      * @param description Nuova descrizione
      */
     public void setDescription(String description) {
-        this.description = description;
+        ensureDetailsLoaded();
+        if (!Objects.equals(this.description, description)) {
+            String oldValue = this.description;
+            this.description = description;
+            fieldChanged(Field.DESCRIPTION, oldValue);
+        }
     }
 
     /** @return Stato dell'attività */
@@ -99,7 +154,16 @@ public class ToDo {
      * @param status Stato (es. "In corso", "Completato")
      */
     public void setStatus(String status) {
-        this.status = status;
+        if (!Objects.equals(this.status, status)) {
+            String oldValue = this.status;
+            this.status = status;
+            fieldChanged(Field.STATUS, oldValue);
+        }
+    }
+
+    /** @return true se l'attività è completata ("Complete" o "Completo") */
+    public boolean isComplete() {
+        return "Complete".equals(status) || "Completo".equals(status);
     }
 
     /** @return Data di scadenza */
@@ -112,7 +176,11 @@ public class ToDo {
      * @param dueDate Data di scadenza
      */
     public void setDueDate(LocalDate dueDate) {
-        this.dueDate = dueDate;
+        if (!Objects.equals(this.dueDate, dueDate)) {
+            LocalDate oldValue = this.dueDate;
+            this.dueDate = dueDate;
+            fieldChanged(Field.DUE_DATE, oldValue);
+        }
     }
 
     /** @return Data di creazione dell'attività */
@@ -128,17 +196,23 @@ public class ToDo {
         this.createdDate = createdDate;
     }
 
-    /** @return Posizione dell'attività nella board */
+    /** @return Chiave di ordinamento dell'attività nella board */
     public int getPosition() {
         return position;
     }
 
     /**
-     * Imposta la posizione dell'attività nella board.
-     * @param position Posizione (0-based)
+     * Imposta la chiave di ordinamento dell'attività nella board.
+     * Non è un indice: le posizioni sono crescenti e distanziate, a partire da
+     * {@link models.board.Board#POSITION_GAP}, e i ToDo vengono ordinati per posizione crescente.
+     * @param position Chiave di ordinamento (vedi {@link models.board.Board})
      */
     public void setPosition(int position) {
-        this.position = position;
+        if (this.position != position) {
+            Integer oldValue = this.position;
+            this.position = position;
+            fieldChanged(Field.POSITION, oldValue);
+        }
     }
 
     /** @return Proprietario dell'attività */
@@ -151,7 +225,11 @@ public class ToDo {
      * @param owner Nuovo proprietario
      */
     public void setOwner(String owner) {
-        this.owner = owner;
+        if (!Objects.equals(this.owner, owner)) {
+            String oldValue = this.owner;
+            this.owner = owner;
+            fieldChanged(Field.OWNER, oldValue);
+        }
     }
 
     /** @return URL associato all'attività (es. link esterni) */
@@ -164,7 +242,11 @@ public class ToDo {
      * @param url URL da associare
      */
     public void setUrl(String url) {
-        this.url = url;
+        if (!Objects.equals(this.url, url)) {
+            String oldValue = this.url;
+            this.url = url;
+            fieldChanged(Field.URL, oldValue);
+        }
     }
 
     /** @return Colore associato all'attività */
@@ -177,7 +259,11 @@ public class ToDo {
      * @param color Colore in formato esadecimale o nome
      */
     public void setColor(String color) {
-        this.color = color;
+        if (!Objects.equals(this.color, color)) {
+            String oldValue = this.color;
+            this.color = color;
+            fieldChanged(Field.COLOR, oldValue);
+        }
     }
 
     /** @return URL o percorso dell'immagine associata */
@@ -190,11 +276,16 @@ public class ToDo {
      * @param image Percorso o URL immagine
      */
     public void setImage(String image) {
-        this.image = image;
+        if (!Objects.equals(this.image, image)) {
+            String oldValue = this.image;
+            this.image = image;
+            fieldChanged(Field.IMAGE, oldValue);
+        }
     }
 
     /** @return Mappa delle attività secondarie (titolo → completata?) */
     public Map<String, Boolean> getActivityList() {
+        ensureDetailsLoaded();
         return activityList;
     }
 
@@ -203,6 +294,7 @@ public class ToDo {
      * @param activityList Mappa titolo-attività / stato completamento
      */
     public void setActivityList(Map<String, Boolean> activityList) {
+        ensureDetailsLoaded();
         this.activityList = activityList;
     }
 
@@ -211,6 +303,7 @@ public class ToDo {
      * @param activityTitle Titolo della sotto-attività
      */
     public void addActivity(String activityTitle) {
+        ensureDetailsLoaded();
         this.activityList.put(activityTitle, false);
     }
 
@@ -219,11 +312,65 @@ public class ToDo {
      * @param activityTitle Titolo della sotto-attività da rimuovere
      */
     public void deleteActivity(String activityTitle) {
+        ensureDetailsLoaded();
         this.activityList.remove(activityTitle);
     }
 
+    /**
+     * Restituisce le sotto-attività aggiunte, rimosse o modificate dall'ultimo salvataggio.
+     * @return Le modifiche da applicare al database
+     */
+    public ActivityChanges getActivityChanges() {
+        return ActivityChanges.between(persistedActivities, activityList);
+    }
+
+    /**
+     * Registra un osservatore delle modifiche ai campi.
+     * @param listener Osservatore da registrare
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Rimuove un osservatore registrato in precedenza.
+     * @param listener Osservatore da rimuovere
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Segna il campo come modificato e avvisa gli osservatori.
+     */
+    private void fieldChanged(Field field, Object oldValue) {
+        dirtyFields.add(field);
+        for (ChangeListener listener : new ArrayList<>(changeListeners)) {
+            listener.onChange(this, field, oldValue);
+        }
+    }
+
+    /** @return Campi modificati dall'ultimo salvataggio */
+    public Set<Field> getDirtyFields() {
+        return Collections.unmodifiableSet(EnumSet.copyOf(dirtyFields));
+    }
+
+    /** @return true se ci sono campi o sotto-attività non ancora salvati */
+    public boolean hasUnsavedChanges() {
+        return !dirtyFields.isEmpty() || !getActivityChanges().isEmpty();
+    }
+
+    /**
+     * Segna lo stato corrente come salvato nel database (dopo il caricamento o un commit).
+     */
+    public void markPersisted() {
+        this.persistedActivities = new HashMap<>(activityList);
+        this.dirtyFields.clear();
+    }
+
     /** @return Insieme degli utenti con cui l'attività è condivisa */
     public Set<User> getUsers() {
+        ensureDetailsLoaded();
         return sharedUsers;
     }
 
@@ -232,6 +379,7 @@ public class ToDo {
      * @param user Oggetto utente da condividere
      */
     public void addSharedUser(User user) {
+        ensureDetailsLoaded();
         if (user != null) {
             this.sharedUsers.add(user);
         }
@@ -242,6 +390,7 @@ public class ToDo {
      * @param username Username dell'utente da rimuovere
      */
     public void removeSharedUser(String username) {
+        ensureDetailsLoaded();
         this.sharedUsers.removeIf(u -> u.getUsername().equals(username));
     }
 
@@ -249,9 +398,80 @@ public class ToDo {
      * Rimuove tutti gli utenti condivisi.
      */
     public void clearUsers() {
+        ensureDetailsLoaded();
         this.sharedUsers.clear();
     }
 
+    /**
+     * Segna i dettagli del ToDo come non ancora caricati: verranno letti dalla sorgente
+     * al primo accesso a descrizione, sotto-attività o utenti condivisi.
+     * @param source Sorgente dei dettagli
+     */
+    public void setDetailsSource(ToDoDetailsSource source) {
+        this.detailsSource = source;
+    }
+
+    /** @return true se descrizione, sotto-attività e utenti condivisi sono in memoria */
+    public boolean isDetailsLoaded() {
+        return detailsSource == null;
+    }
+
+    /**
+     * Carica i dettagli del ToDo, se non sono già in memoria.
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public void loadDetails() throws SQLException {
+        ToDoDetailsSource source = detailsSource;
+        if (source != null) {
+            source.loadDetails(this);
+        }
+    }
+
+    /**
+     * Applica i dettagli letti dal database. I valori sono considerati già salvati:
+     * non vengono segnati come modificati né notificati agli osservatori.
+     * Le modifiche in memoria non ancora salvate prevalgono sui valori letti: una descrizione
+     * modificata viene mantenuta, le sotto-attività aggiunte, rimosse o modificate vengono
+     * riapplicate a quelle lette e gli utenti già presenti restano condivisi.
+     * @param description Descrizione dell'attività
+     * @param activities Sotto-attività (titolo → completata?)
+     * @param users Utenti con cui l'attività è condivisa
+     */
+    public void applyDetails(String description, Map<String, Boolean> activities, Collection<User> users) {
+        ActivityChanges unsavedActivities = getActivityChanges();
+        this.detailsSource = null;
+        if (!dirtyFields.contains(Field.DESCRIPTION)) {
+            this.description = description;
+        }
+
+        Map<String, Boolean> mergedActivities = new HashMap<>(activities);
+        mergedActivities.putAll(unsavedActivities.getAdded());
+        mergedActivities.putAll(unsavedActivities.getToggled());
+        mergedActivities.keySet().removeAll(unsavedActivities.getRemoved());
+        this.activityList = mergedActivities;
+        this.persistedActivities = new HashMap<>(activities);
+
+        Set<User> mergedUsers = new HashSet<>(users);
+        mergedUsers.addAll(sharedUsers);
+        this.sharedUsers = mergedUsers;
+    }
+
+    /**
+     * Carica i dettagli al primo accesso. In caso di errore i dettagli restano da caricare
+     * e il caricamento viene ritentato all'accesso successivo.
+     * @throws IllegalStateException se il caricamento dei dettagli fallisce
+     */
+    private void ensureDetailsLoaded() {
+        if (detailsSource == null) {
+            return;
+        }
+        try {
+            loadDetails();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load the details of ToDo '" + title + "'", e);
+        }
+    }
+
     /**
      * Confronta due ToDo in base all'ID.
      * @param o Oggetto da confrontare
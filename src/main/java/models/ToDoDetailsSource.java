@@ -0,0 +1,19 @@
+package models;
+
+import java.sql.SQLException;
+
+/**
+ * Sorgente dei dettagli di un ToDo caricato in forma ridotta: descrizione,
+ * sotto-attività e utenti con cui è condiviso.
+ */
+@FunctionalInterface
+public interface ToDoDetailsSource {
+
+    /**
+     * Carica i dettagli del ToDo e li applica con {@link ToDo#applyDetails(String, java.util.Map, java.util.Collection)}.
+     *
+     * @param toDo il ToDo di cui caricare i dettagli
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    void loadDetails(ToDo toDo) throws SQLException;
+}
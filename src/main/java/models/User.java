@@ -16,6 +16,9 @@ public class User {
     private final String hashedPassword;
     private final ArrayList<Board> boardList;
 
+    /** Vista in sola lettura della lista di board, ricreata solo dopo una modifica */
+    private volatile List<Board> boardListSnapshot;
+
     /**
      * Costruisce un nuovo utente con una password in chiaro (che verrà hashata internamente).
      * @param username Nome utente
@@ -75,6 +78,7 @@ public class User {
         }
         Board board = new Board(boardName, username);
         boardList.add(board);
+        boardListSnapshot = null;
         return board;
     }
 
@@ -84,6 +88,7 @@ public class User {
      */
     public void addBoard(Board board) {
         boardList.add(board);
+        boardListSnapshot = null;
     }
 
     /**
@@ -91,6 +96,7 @@ public class User {
      */
     public void clearBoards() {
         this.boardList.clear();
+        boardListSnapshot = null;
     }
 
     /**
@@ -124,6 +130,7 @@ public class User {
 
         if (boardToRemove != null) {
             boardList.remove(boardToRemove);
+            boardListSnapshot = null;
             System.out.printf("Board %s deleted%n", boardName.toString());
         } else {
             System.out.println("Board does not exist");
@@ -156,10 +163,16 @@ public class User {
 
     /**
      * Restituisce la lista di board associate all'utente.
-     * @return Copia della lista di board
+     * La lista è in sola lettura e non riflette le modifiche successive alla chiamata.
+     * @return Vista immutabile della lista di board
      */
-    public ArrayList<Board> getBoardList() {
-        return new ArrayList<>(this.boardList);
+    public List<Board> getBoardList() {
+        List<Board> snapshot = boardListSnapshot;
+        if (snapshot == null) {
+            snapshot = List.copyOf(boardList);
+            boardListSnapshot = snapshot;
+        }
+        return snapshot;
     }
 
     /**
@@ -1,6 +1,8 @@
 package models.board;
 
 import models.ToDo;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
 
 import java.util.ArrayList;
@@ -10,13 +12,68 @@ import java.util.Objects;
 /**
  * Rappresenta una bacheca (Board) contenente una lista di attività (ToDo).
  * Ogni board ha un nome, un proprietario, un colore e un identificatore.
+ *
+ * <p>I ToDo sono indicizzati per ID e per titolo e proprietario, così che ricerche,
+ * controlli sui duplicati e rimozioni non richiedano di scorrere l'intera lista.
+ * La ricerca per parte del titolo usa un indice per trigrammi ({@link #searchByTitle(String)}),
+ * le ricerche per data di scadenza un indice ordinato per data.</p>
+ *
+ * <p>Le posizioni dei ToDo sono numeri crescenti distanziati di {@link #POSITION_GAP}: aggiunte,
+ * rimozioni e spostamenti cambiano la posizione del solo ToDo interessato, che viene collocato
+ * a metà tra i vicini. Solo quando tra due vicini non c'è più spazio tutte le posizioni
+ * vengono ridistribuite ({@link #rebalancePositions()}).</p>
+ *
+ * <p>Una board può essere caricata in modo differito tramite una {@link ToDoPageSource}:
+ * finché {@link #hasMorePages()} restituisce true la board contiene solo le prime pagine dei ToDo,
+ * e ricerche e indici riguardano solo i ToDo già caricati. I ToDo aggiunti in coda nel frattempo
+ * ricevono una posizione successiva a quella dell'ultimo ToDo nel database, indicata dal chiamante,
+ * e restano in fondo alla board anche dopo il caricamento delle pagine successive.</p>
  */
 public class Board {
+    /** Distanza tra le posizioni di due ToDo consecutivi dopo un'aggiunta in coda o una ridistribuzione */
+    public static final int POSITION_GAP = 1024;
+
     private int id;
     private final BoardName name;
     private final String owner;
     private String color;
-    private final List<ToDo> todoList;
+
+    /** ToDo della board indicizzati per ID, nell'ordine in cui compaiono nella board */
+    private final SequencedMap<UUID, ToDo> todosById = new LinkedHashMap<>();
+
+    /**
+     * ToDo della board indicizzati per titolo e poi per proprietario, nell'ordine in cui sono stati aggiunti.
+     * Il database non impedisce titoli ripetuti per lo stesso proprietario: per ogni coppia si tiene una lista.
+     */
+    private final Map<String, Map<String, List<ToDo>>> todosByTitle = new HashMap<>();
+
+    /** Indice per trigrammi dei titoli, usato dalla ricerca testuale */
+    private final TitleIndex titleSearchIndex = new TitleIndex();
+
+    /** Indice dei ToDo per data di scadenza */
+    private final DueDateIndex dueDateIndex = new DueDateIndex();
+
+    /** Mantiene aggiornati gli indici quando un ToDo della board viene modificato */
+    private final ToDo.ChangeListener indexUpdater = this::onToDoChanged;
+
+    /** Vista in sola lettura della lista dei ToDo, ricreata solo dopo una modifica */
+    private volatile List<ToDo> todoListSnapshot;
+
+    /** Sorgente delle pagine ancora da caricare, null se la board è caricata completamente */
+    private ToDoPageSource pageSource;
+
+    /** Numero di ToDo per pagina nel caricamento differito */
+    private int pageSize;
+
+    /** Posizione e ID dell'ultimo ToDo letto dalla sorgente delle pagine */
+    private int pageCursorPosition;
+    private UUID pageCursorId;
+
+    /** Pagina già letta in anticipo e non ancora aggiunta alla board */
+    private List<ToDo> prefetchedPage;
+
+    /** ToDo aggiunti in coda mentre restavano pagine da caricare, da mantenere dopo i ToDo delle pagine */
+    private final List<ToDo> tailTodos = new ArrayList<>();
 
     /**
      * Costruisce una nuova board con nome e proprietario.
@@ -26,7 +83,6 @@ public class Board {
     public Board(BoardName name, String owner) {
         this.name = name;
         this.owner = owner;
-        this.todoList = new ArrayList<>();
         this.color = "Default";
         this.id = 0;
     }
@@ -43,7 +99,6 @@ public class Board {
         this.name = name;
         this.owner = owner;
         this.color = color;
-        this.todoList = new ArrayList<>();
     }
 
     /** @return Colore della board */
@@ -89,14 +144,31 @@ public class Board {
      * @return Il ToDo creato, oppure null se già presente
      */
     public ToDo addTodo(String title, String owner) {
-        if (todoList.stream().anyMatch(todo -> todo.getTitle().equals(title) && todo.getOwner().equals(owner))) {
+        return addTodo(title, owner, 0);
+    }
+
+    /**
+     * Aggiunge un nuovo ToDo in coda alla board, dopo la posizione indicata.
+     * Evita duplicati per titolo e proprietario tra i ToDo caricati: in una board caricata in parte
+     * il chiamante deve verificare anche quelli non ancora caricati.
+     * @param title Titolo del ToDo
+     * @param owner Proprietario del ToDo
+     * @param tailPosition Posizione dell'ultimo ToDo della board nel database, anche se non ancora caricato
+     * @return Il ToDo creato, oppure null se già presente o se in coda non c'è spazio
+     */
+    public ToDo addTodo(String title, String owner, int tailPosition) {
+        if (findByTitleAndOwner(title, owner).isPresent()) {
             System.err.println("Error: A ToDo with title '" + title + "' by owner '" + owner + "' already exists on board " + this.name);
             return null;
         }
+        OptionalInt position = nextPosition(tailPosition);
+        if (position.isEmpty()) {
+            return null;
+        }
 
         ToDo todo = new ToDo(title, owner);
-        todoList.add(todo);
-        todo.setPosition(todoList.size());
+        todo.setPosition(position.getAsInt());
+        appendToTail(todo);
         return todo;
     }
 
@@ -105,27 +177,99 @@ public class Board {
      * @param existingTodo ToDo esistente da aggiungere
      */
     public void addExistingTodo(ToDo existingTodo) {
-        if (todoList.stream().anyMatch(todo -> todo.getId().equals(existingTodo.getId()))) {
+        if (todosById.containsKey(existingTodo.getId())) {
             System.err.println("Error: ToDo with ID '" + existingTodo.getId() + "' already exists on board " + this.name);
             return;
         }
-        todoList.add(existingTodo);
+        index(existingTodo);
+    }
+
+    /**
+     * Aggiunge in coda alla board un ToDo esistente proveniente da un'altra board,
+     * assegnandogli una posizione successiva a quella dell'ultimo ToDo.
+     * @param existingTodo ToDo esistente da aggiungere
+     * @return true se il ToDo è stato aggiunto, false se era già presente
+     */
+    public boolean appendExistingTodo(ToDo existingTodo) {
+        return appendExistingTodo(existingTodo, 0);
     }
 
     /**
-     * Rimuove un ToDo dalla board e aggiorna le posizioni degli altri.
+     * Aggiunge in coda alla board un ToDo esistente proveniente da un'altra board,
+     * assegnandogli una posizione successiva a quella indicata e a quella dell'ultimo ToDo caricato.
+     * @param existingTodo ToDo esistente da aggiungere
+     * @param tailPosition Posizione dell'ultimo ToDo della board nel database, anche se non ancora caricato
+     * @return true se il ToDo è stato aggiunto, false se era già presente o se in coda non c'è spazio
+     */
+    public boolean appendExistingTodo(ToDo existingTodo, int tailPosition) {
+        if (todosById.containsKey(existingTodo.getId())) {
+            System.err.println("Error: ToDo with ID '" + existingTodo.getId() + "' already exists on board " + this.name);
+            return false;
+        }
+        OptionalInt position = nextPosition(tailPosition);
+        if (position.isEmpty()) {
+            return false;
+        }
+        existingTodo.setPosition(position.getAsInt());
+        appendToTail(existingTodo);
+        return true;
+    }
+
+    /**
+     * Calcola, senza aggiungere nulla, la posizione che riceverà il prossimo ToDo aggiunto in coda,
+     * così che il chiamante possa scriverla nel database prima di modificare la board.
+     * Se in coda non c'è spazio e la board è caricata completamente, le posizioni vengono ridistribuite.
+     * @param tailPosition Posizione dell'ultimo ToDo della board nel database, anche se non ancora caricato
+     * @return la posizione per il prossimo ToDo in coda, o vuoto se in coda non c'è spazio
+     */
+    public OptionalInt nextAppendPosition(int tailPosition) {
+        return nextPosition(tailPosition);
+    }
+
+    /**
+     * Aggiunge in coda alla board un ToDo esistente con una posizione già calcolata
+     * con {@link #nextAppendPosition(int)}.
+     * @param existingTodo ToDo esistente da aggiungere
+     * @param position Posizione del ToDo, successiva a quella dell'ultimo ToDo della board
+     * @return true se il ToDo è stato aggiunto, false se era già presente o se la posizione non è più in coda
+     */
+    public boolean appendExistingTodoAt(ToDo existingTodo, int position) {
+        if (todosById.containsKey(existingTodo.getId())) {
+            System.err.println("Error: ToDo with ID '" + existingTodo.getId() + "' already exists on board " + this.name);
+            return false;
+        }
+        ToDo last = todosById.isEmpty() ? null : todosById.lastEntry().getValue();
+        if (last != null && last.getPosition() >= position) {
+            System.err.println("Error: Position " + position + " is not at the end of board " + this.name);
+            return false;
+        }
+        existingTodo.setPosition(position);
+        appendToTail(existingTodo);
+        return true;
+    }
+
+    /**
+     * Aggiunge in coda alla board un ToDo con una posizione successiva a tutte le altre.
+     */
+    private void appendToTail(ToDo todo) {
+        index(todo);
+        if (hasMorePages()) {
+            tailTodos.add(todo);
+        }
+    }
+
+    /**
+     * Rimuove un ToDo dalla board; le posizioni degli altri ToDo non cambiano.
      * Se il ToDo è stato creato dal proprietario della board, la lista utenti condivisi viene svuotata.
      * @param toDoToRemove ToDo da rimuovere
      */
     public void removeToDo(ToDo toDoToRemove) {
-        boolean removed = todoList.remove(toDoToRemove);
+        boolean removed = unindex(toDoToRemove);
         if (removed) {
-            for (int i = 0; i < todoList.size(); i++) {
-                todoList.get(i).setPosition(i + 1);
-            }
             System.out.println("ToDo '" + toDoToRemove.getTitle() + "' removed from board '" + name + "'.");
 
-            if (this.owner.equals(toDoToRemove.getOwner())) {
+            // Con i dettagli non ancora caricati non ci sono utenti in memoria da rimuovere
+            if (this.owner.equals(toDoToRemove.getOwner()) && toDoToRemove.isDetailsLoaded()) {
                 System.out.println("This ToDo was created by the current user. Clearing shared users list...");
                 toDoToRemove.clearUsers();
             }
@@ -135,11 +279,451 @@ public class Board {
     }
 
     /**
-     * Restituisce una copia della lista dei ToDo presenti nella board.
-     * @return Lista dei ToDo
+     * Restituisce la lista dei ToDo presenti nella board.
+     * La lista è in sola lettura e non riflette le modifiche successive alla chiamata;
+     * finché la board non cambia, chiamate successive restituiscono la stessa istanza.
+     * @return Vista immutabile della lista dei ToDo
      */
     public List<ToDo> getTodoList() {
-        return new ArrayList<>(todoList);
+        List<ToDo> snapshot = todoListSnapshot;
+        if (snapshot == null) {
+            snapshot = List.copyOf(todosById.values());
+            todoListSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Sposta un ToDo in una nuova posizione della board.
+     * Cambia la posizione del solo ToDo spostato, a metà tra i nuovi vicini; se tra i vicini
+     * non c'è spazio ridistribuisce le posizioni di tutti i ToDo. In una board non ancora
+     * caricata completamente un ToDo non può essere spostato in fondo ai ToDo caricati,
+     * né dove servirebbe una ridistribuzione.
+     * @param todo ToDo da spostare
+     * @param newIndex Nuovo indice (0-based) del ToDo nella lista
+     * @return true se il ToDo è stato spostato
+     */
+    public boolean moveTodo(ToDo todo, int newIndex) {
+        if (!containsTodo(todo) || newIndex < 0 || newIndex >= todosById.size()) {
+            return false;
+        }
+        if (newIndex == todosById.size() - 1 && hasMorePages()) {
+            // La posizione dei ToDo non ancora caricati è ignota: non si può calcolare quella dell'ultimo
+            return false;
+        }
+        List<ToDo> reordered = new ArrayList<>(todosById.values());
+        reordered.remove(todo);
+        reordered.add(newIndex, todo);
+
+        ToDo previous = newIndex > 0 ? reordered.get(newIndex - 1) : null;
+        ToDo next = newIndex < reordered.size() - 1 ? reordered.get(newIndex + 1) : null;
+        OptionalInt position = positionBetween(previous, next);
+        if (position.isEmpty() && hasMorePages()) {
+            // Ridistribuire solo i ToDo caricati potrebbe scavalcare quelli ancora da caricare
+            System.err.println("WARN: No room to move ToDo '" + todo.getTitle() + "' before the whole board '" + name + "' is loaded.");
+            return false;
+        }
+
+        todosById.clear();
+        for (ToDo t : reordered) {
+            todosById.put(t.getId(), t);
+        }
+        todoListSnapshot = null;
+        titleSearchIndex.reorder(reordered);
+
+        if (position.isPresent()) {
+            todo.setPosition(position.getAsInt());
+        } else {
+            rebalancePositions();
+        }
+        return true;
+    }
+
+    /**
+     * Attiva il caricamento differito: i ToDo della board verranno letti dalla sorgente
+     * una pagina alla volta, a partire dalla prima, con {@link #loadNextPage()}.
+     * @param source Sorgente delle pagine
+     * @param pageSize Numero di ToDo per pagina
+     */
+    public void setPageSource(ToDoPageSource source, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pageSource = source;
+        this.pageSize = pageSize;
+        this.pageCursorId = null;
+        this.prefetchedPage = null;
+        this.tailTodos.clear();
+    }
+
+    /**
+     * @return true se restano ToDo da caricare dalla sorgente delle pagine
+     */
+    public boolean hasMorePages() {
+        return pageSource != null || (prefetchedPage != null && !prefetchedPage.isEmpty());
+    }
+
+    /**
+     * Aggiunge alla board la pagina successiva di ToDo, usando quella letta in anticipo se disponibile.
+     * @return I ToDo aggiunti, lista vuota se non restano pagine
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public List<ToDo> loadNextPage() throws SQLException {
+        PageRequest request = nextPageRequest();
+        return addNextPage(request, request != null ? request.fetch() : null);
+    }
+
+    /**
+     * Legge in anticipo la pagina successiva, senza aggiungerla alla board,
+     * così che la prossima chiamata a {@link #loadNextPage()} non debba attendere il database.
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public void prefetchNextPage() throws SQLException {
+        PageRequest request = nextPageRequest();
+        if (request != null) {
+            storePrefetchedPage(request, request.fetch());
+        }
+    }
+
+    /**
+     * Carica tutte le pagine rimanenti; necessario prima delle operazioni che richiedono
+     * la board completa, come l'aggiunta di un ToDo in coda.
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    public void loadAllPages() throws SQLException {
+        while (hasMorePages()) {
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Prepara la lettura della pagina successiva, da eseguire con {@link PageRequest#fetch()}
+     * anche fuori dal thread che possiede la board; la pagina letta va poi consegnata alla board
+     * con {@link #addNextPage(PageRequest, List)} o {@link #storePrefetchedPage(PageRequest, List)}.
+     * @return la richiesta della pagina successiva, o null se non restano pagine da leggere
+     *         oppure se la pagina successiva è già stata letta in anticipo
+     */
+    public PageRequest nextPageRequest() {
+        if (pageSource == null || prefetchedPage != null) {
+            return null;
+        }
+        return new PageRequest(pageSource, pageCursorPosition, pageCursorId, pageSize);
+    }
+
+    /**
+     * Aggiunge alla board la pagina letta per una richiesta di {@link #nextPageRequest()}.
+     * @param request la richiesta eseguita, o null per aggiungere la pagina letta in anticipo
+     * @param page i ToDo letti per la richiesta (ignorati se la richiesta è null)
+     * @return I ToDo aggiunti, lista vuota se non restano pagine o se la richiesta non è più attuale
+     */
+    public List<ToDo> addNextPage(PageRequest request, List<ToDo> page) {
+        List<ToDo> added;
+        if (request == null) {
+            added = prefetchedPage != null ? prefetchedPage : List.of();
+            prefetchedPage = null;
+        } else if (acceptPage(request, page)) {
+            added = page;
+        } else {
+            return List.of();
+        }
+        if (tailTodos.isEmpty()) {
+            for (ToDo todo : added) {
+                addExistingTodo(todo);
+            }
+            return added;
+        }
+
+        // I ToDo aggiunti in coda restano dopo quelli della pagina, che può già contenerli
+        List<ToDo> fromPage = new ArrayList<>(added.size());
+        for (ToDo todo : added) {
+            if (!tailTodos.contains(todo)) {
+                addExistingTodo(todo);
+                fromPage.add(todo);
+            }
+        }
+        for (ToDo todo : tailTodos) {
+            todosById.remove(todo.getId());
+            todosById.put(todo.getId(), todo);
+        }
+        todoListSnapshot = null;
+        titleSearchIndex.reorder(todosById.values());
+        if (!hasMorePages()) {
+            tailTodos.clear();
+        }
+        return fromPage;
+    }
+
+    /**
+     * Conserva, senza aggiungerla alla board, la pagina letta in anticipo per una richiesta
+     * di {@link #nextPageRequest()}; verrà aggiunta dalla prossima {@link #addNextPage(PageRequest, List)}.
+     * @param request la richiesta eseguita
+     * @param page i ToDo letti per la richiesta
+     */
+    public void storePrefetchedPage(PageRequest request, List<ToDo> page) {
+        if (acceptPage(request, page)) {
+            prefetchedPage = page;
+        }
+    }
+
+    /**
+     * Avanza il cursore delle pagine oltre la pagina letta, se la richiesta è ancora quella attesa.
+     * @return false se nel frattempo la board ha cambiato sorgente o ha già ricevuto la pagina
+     */
+    private boolean acceptPage(PageRequest request, List<ToDo> page) {
+        if (request.source != pageSource || !Objects.equals(request.afterId, pageCursorId) || prefetchedPage != null) {
+            System.err.println("WARN: Discarding a stale page of board '" + name + "'.");
+            return false;
+        }
+        if (!page.isEmpty()) {
+            ToDo last = page.get(page.size() - 1);
+            pageCursorPosition = last.getPosition();
+            pageCursorId = last.getId();
+        }
+        if (page.size() < request.limit) {
+            pageSource = null;
+        }
+        return true;
+    }
+
+    /**
+     * Lettura di una pagina di ToDo dalla sorgente, separata dalla board: può essere eseguita
+     * su un altro thread senza leggere né modificare lo stato della board.
+     */
+    public static final class PageRequest {
+        private final ToDoPageSource source;
+        private final int afterPosition;
+        private final UUID afterId;
+        private final int limit;
+
+        private PageRequest(ToDoPageSource source, int afterPosition, UUID afterId, int limit) {
+            this.source = source;
+            this.afterPosition = afterPosition;
+            this.afterId = afterId;
+            this.limit = limit;
+        }
+
+        /**
+         * Legge la pagina dalla sorgente.
+         * @return i ToDo della pagina
+         * @throws SQLException se si verifica un errore durante il caricamento
+         */
+        public List<ToDo> fetch() throws SQLException {
+            return source.loadPage(afterPosition, afterId, limit);
+        }
+    }
+
+    /**
+     * Ridistribuisce le posizioni di tutti i ToDo della board a distanza {@link #POSITION_GAP},
+     * mantenendone l'ordine. Necessario solo quando tra due ToDo consecutivi non c'è più spazio.
+     */
+    public void rebalancePositions() {
+        int position = 0;
+        for (ToDo t : todosById.values()) {
+            position += POSITION_GAP;
+            t.setPosition(position);
+        }
+        System.out.println("DEBUG: Rebalanced positions of " + todosById.size() + " ToDo(s) on board '" + name + "'.");
+    }
+
+    /**
+     * @param tailPosition Posizione da superare oltre a quella dell'ultimo ToDo caricato
+     * @return la posizione per un ToDo da aggiungere in coda alla board, o vuoto se in coda
+     *         non c'è spazio e la board, caricata in parte, non può essere ridistribuita
+     */
+    private OptionalInt nextPosition(int tailPosition) {
+        ToDo last = todosById.isEmpty() ? null : todosById.lastEntry().getValue();
+        long lower = Math.max(last != null ? last.getPosition() : 0, tailPosition);
+        if (lower + 2L * POSITION_GAP <= Integer.MAX_VALUE) {
+            return OptionalInt.of((int) (lower + POSITION_GAP));
+        }
+        if (hasMorePages()) {
+            System.err.println("WARN: No room at the end of board '" + name + "' before the whole board is loaded.");
+            return OptionalInt.empty();
+        }
+        rebalancePositions();
+        return positionBetween(last, null);
+    }
+
+    /**
+     * Calcola una posizione compresa tra quelle di due ToDo consecutivi.
+     * @param previous ToDo precedente, o null se la posizione è in testa
+     * @param next ToDo successivo, o null se la posizione è in coda
+     * @return la posizione intermedia, o vuoto se tra i due non c'è spazio
+     */
+    private static OptionalInt positionBetween(ToDo previous, ToDo next) {
+        long lower = previous != null ? previous.getPosition() : 0;
+        long upper = next != null ? next.getPosition() : lower + 2L * POSITION_GAP;
+        if (upper - lower < 2 || upper > Integer.MAX_VALUE) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of((int) (next != null ? lower + (upper - lower) / 2 : lower + POSITION_GAP));
+    }
+
+    /**
+     * Cerca i ToDo della board il cui titolo contiene il testo indicato, ignorando maiuscole e minuscole.
+     * Pensata per la ricerca durante la digitazione: se il testo estende quello della ricerca
+     * precedente, vengono filtrati solo i risultati già trovati.
+     * @param query Testo da cercare; se vuoto o null vengono restituiti tutti i ToDo
+     * @return ToDo corrispondenti, nell'ordine della board
+     */
+    public List<ToDo> searchByTitle(String query) {
+        if (query == null || query.isEmpty()) {
+            return getTodoList();
+        }
+        return titleSearchIndex.search(query);
+    }
+
+    /**
+     * Cerca un ToDo della board in base all'ID.
+     * @param id ID del ToDo
+     * @return Il ToDo, se presente nella board
+     */
+    public Optional<ToDo> findById(UUID id) {
+        return Optional.ofNullable(todosById.get(id));
+    }
+
+    /**
+     * Cerca un ToDo della board in base al titolo, indipendentemente dal proprietario.
+     * Se più ToDo hanno lo stesso titolo restituisce il primo aggiunto alla board.
+     * @param title Titolo del ToDo
+     * @return Il ToDo, se presente nella board
+     */
+    public Optional<ToDo> findByTitle(String title) {
+        Map<String, List<ToDo>> byOwner = todosByTitle.get(title);
+        if (byOwner == null) {
+            return Optional.empty();
+        }
+        return byOwner.values().stream().findFirst().map(List::getFirst);
+    }
+
+    /**
+     * Cerca un ToDo della board in base a titolo e proprietario.
+     * Se più ToDo hanno lo stesso titolo e proprietario restituisce il primo aggiunto alla board.
+     * @param title Titolo del ToDo
+     * @param owner Proprietario del ToDo
+     * @return Il ToDo, se presente nella board
+     */
+    public Optional<ToDo> findByTitleAndOwner(String title, String owner) {
+        Map<String, List<ToDo>> byOwner = todosByTitle.get(title);
+        List<ToDo> todos = byOwner != null ? byOwner.get(owner) : null;
+        return todos != null ? Optional.of(todos.getFirst()) : Optional.empty();
+    }
+
+    /**
+     * Restituisce i ToDo della board con scadenza nel giorno indicato.
+     * @param date Giorno di scadenza
+     * @return ToDo in scadenza, ordinati per posizione
+     */
+    public List<ToDo> getTodosDueOn(LocalDate date) {
+        return dueDateIndex.dueOn(date);
+    }
+
+    /**
+     * Restituisce i ToDo della board con scadenza oggi.
+     * @return ToDo in scadenza oggi, ordinati per posizione
+     */
+    public List<ToDo> getTodosDueToday() {
+        return getTodosDueOn(LocalDate.now());
+    }
+
+    /**
+     * Restituisce i ToDo della board con scadenza compresa tra due date, estremi inclusi.
+     * @param from Primo giorno dell'intervallo
+     * @param to Ultimo giorno dell'intervallo
+     * @return ToDo in scadenza nell'intervallo, ordinati per data e poi per posizione
+     */
+    public List<ToDo> getTodosDueBetween(LocalDate from, LocalDate to) {
+        return dueDateIndex.dueBetween(from, to);
+    }
+
+    /**
+     * Restituisce i ToDo della board scaduti e non ancora completati.
+     * @param today Giorno di riferimento: sono scaduti i ToDo con scadenza precedente
+     * @return ToDo scaduti, ordinati per data e poi per posizione
+     */
+    public List<ToDo> getOverdueTodos(LocalDate today) {
+        return dueDateIndex.overdue(today);
+    }
+
+    /**
+     * @param todo ToDo da cercare
+     * @return true se il ToDo è presente nella board
+     */
+    public boolean containsTodo(ToDo todo) {
+        return todosById.containsKey(todo.getId());
+    }
+
+    /**
+     * Aggiunge il ToDo in coda alla board e agli indici.
+     */
+    private void index(ToDo todo) {
+        todosById.put(todo.getId(), todo);
+        todoListSnapshot = null;
+        addToTitleIndex(todo);
+        titleSearchIndex.add(todo);
+        dueDateIndex.add(todo);
+        todo.addChangeListener(indexUpdater);
+    }
+
+    /**
+     * Rimuove il ToDo dalla board e dagli indici.
+     * @return true se il ToDo era presente
+     */
+    private boolean unindex(ToDo todo) {
+        if (todosById.remove(todo.getId()) == null) {
+            return false;
+        }
+        todoListSnapshot = null;
+        tailTodos.remove(todo);
+        removeFromTitleIndex(todo.getTitle(), todo.getOwner(), todo);
+        titleSearchIndex.remove(todo);
+        dueDateIndex.remove(todo, todo.getDueDate());
+        todo.removeChangeListener(indexUpdater);
+        return true;
+    }
+
+    private void addToTitleIndex(ToDo todo) {
+        List<ToDo> todos = todosByTitle.computeIfAbsent(todo.getTitle(), t -> new LinkedHashMap<>())
+                .computeIfAbsent(todo.getOwner(), o -> new ArrayList<>(1));
+        if (!todos.isEmpty()) {
+            System.err.println("WARN: Board '" + name + "' has more than one ToDo titled '" + todo.getTitle() + "' by owner '" + todo.getOwner() + "'.");
+        }
+        todos.add(todo);
+    }
+
+    private void removeFromTitleIndex(String title, String owner, ToDo todo) {
+        Map<String, List<ToDo>> byOwner = todosByTitle.get(title);
+        List<ToDo> todos = byOwner != null ? byOwner.get(owner) : null;
+        if (todos == null || !todos.remove(todo)) {
+            return;
+        }
+        if (todos.isEmpty()) {
+            byOwner.remove(owner);
+            if (byOwner.isEmpty()) {
+                todosByTitle.remove(title);
+            }
+        }
+    }
+
+    /**
+     * Aggiorna gli indici quando cambiano titolo, proprietario, scadenza o stato di un ToDo della board.
+     */
+    private void onToDoChanged(ToDo todo, ToDo.Field field, Object oldValue) {
+        switch (field) {
+            case TITLE -> {
+                removeFromTitleIndex((String) oldValue, todo.getOwner(), todo);
+                addToTitleIndex(todo);
+                titleSearchIndex.titleChanged(todo);
+            }
+            case OWNER -> {
+                removeFromTitleIndex(todo.getTitle(), (String) oldValue, todo);
+                addToTitleIndex(todo);
+            }
+            case DUE_DATE -> dueDateIndex.dueDateChanged(todo, (LocalDate) oldValue);
+            case STATUS -> dueDateIndex.statusChanged(todo);
+            default -> {
+            }
+        }
     }
 
     /** @return Nome (enum) della board */
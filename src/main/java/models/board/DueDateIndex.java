@@ -0,0 +1,132 @@
+package models.board;
+
+import models.ToDo;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Indice ordinato per data di scadenza dei ToDo di una board.
+ *
+ * <p>I ToDo senza data di scadenza non sono indicizzati. Oltre all'indice completo ne viene
+ * mantenuto uno dei soli ToDo non completati, così che la ricerca dei ToDo scaduti visiti
+ * solo quelli effettivamente da mostrare.</p>
+ *
+ * <p>L'indice è mantenuto dalla {@link Board} ad ogni aggiunta, rimozione e modifica
+ * della data di scadenza o dello stato di un ToDo.</p>
+ */
+final class DueDateIndex {
+    private static final Comparator<ToDo> BY_POSITION = Comparator.comparingInt(ToDo::getPosition);
+
+    /** Tutti i ToDo con una data di scadenza, raggruppati per data */
+    private final NavigableMap<LocalDate, Set<ToDo>> byDate = new TreeMap<>();
+
+    /** I soli ToDo non completati con una data di scadenza, raggruppati per data */
+    private final NavigableMap<LocalDate, Set<ToDo>> pendingByDate = new TreeMap<>();
+
+    /**
+     * Indicizza un ToDo in base alla sua data di scadenza e al suo stato.
+     */
+    void add(ToDo todo) {
+        LocalDate dueDate = todo.getDueDate();
+        if (dueDate == null) {
+            return;
+        }
+        put(byDate, dueDate, todo);
+        if (!todo.isComplete()) {
+            put(pendingByDate, dueDate, todo);
+        }
+    }
+
+    /**
+     * Rimuove un ToDo dall'indice.
+     * @param todo ToDo da rimuovere
+     * @param dueDate Data di scadenza con cui il ToDo era stato indicizzato
+     */
+    void remove(ToDo todo, LocalDate dueDate) {
+        if (dueDate == null) {
+            return;
+        }
+        take(byDate, dueDate, todo);
+        take(pendingByDate, dueDate, todo);
+    }
+
+    /**
+     * Aggiorna l'indice dopo la modifica della data di scadenza di un ToDo.
+     */
+    void dueDateChanged(ToDo todo, LocalDate oldDueDate) {
+        remove(todo, oldDueDate);
+        add(todo);
+    }
+
+    /**
+     * Aggiorna l'indice dei ToDo non completati dopo la modifica dello stato di un ToDo.
+     */
+    void statusChanged(ToDo todo) {
+        LocalDate dueDate = todo.getDueDate();
+        if (dueDate == null) {
+            return;
+        }
+        if (todo.isComplete()) {
+            take(pendingByDate, dueDate, todo);
+        } else {
+            put(pendingByDate, dueDate, todo);
+        }
+    }
+
+    /**
+     * @return ToDo con scadenza nel giorno indicato, ordinati per posizione
+     */
+    List<ToDo> dueOn(LocalDate date) {
+        Set<ToDo> todos = byDate.get(date);
+        return todos == null ? List.of() : sorted(todos);
+    }
+
+    /**
+     * @return ToDo con scadenza tra le due date (incluse), ordinati per data e poi per posizione
+     */
+    List<ToDo> dueBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return flatten(byDate.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * @return ToDo non completati con scadenza precedente al giorno indicato, ordinati per data e poi per posizione
+     */
+    List<ToDo> overdue(LocalDate today) {
+        return flatten(pendingByDate.headMap(today, false).values());
+    }
+
+    private static List<ToDo> flatten(Collection<Set<ToDo>> buckets) {
+        List<ToDo> result = new ArrayList<>();
+        for (Set<ToDo> bucket : buckets) {
+            result.addAll(sorted(bucket));
+        }
+        return result;
+    }
+
+    private static List<ToDo> sorted(Set<ToDo> bucket) {
+        List<ToDo> todos = new ArrayList<>(bucket);
+        todos.sort(BY_POSITION);
+        return todos;
+    }
+
+    private static void put(NavigableMap<LocalDate, Set<ToDo>> index, LocalDate date, ToDo todo) {
+        index.computeIfAbsent(date, d -> new LinkedHashSet<>()).add(todo);
+    }
+
+    private static void take(NavigableMap<LocalDate, Set<ToDo>> index, LocalDate date, ToDo todo) {
+        Set<ToDo> bucket = index.get(date);
+        if (bucket != null && bucket.remove(todo) && bucket.isEmpty()) {
+            index.remove(date);
+        }
+    }
+}
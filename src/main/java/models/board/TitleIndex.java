@@ -0,0 +1,193 @@
+package models.board;
+
+import models.ToDo;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice per trigrammi dei titoli dei ToDo di una board, usato per la ricerca testuale
+ * (case-insensitive, per sottostringa).
+ *
+ * <p>I candidati di una ricerca sono i ToDo che contengono tutti i trigrammi della query;
+ * il confronto esatto avviene sul titolo già convertito in minuscolo. Se la query estende
+ * la precedente e l'indice non è cambiato, la ricerca riparte dai risultati precedenti.
+ * Le query più corte di un trigramma, o con trigrammi molto diffusi, scorrono direttamente
+ * i titoli in minuscolo nell'ordine della board, senza bisogno di riordinare i risultati.</p>
+ *
+ * <p>L'indice è mantenuto dalla {@link Board} ad ogni aggiunta, rimozione, rinomina o riordino.</p>
+ */
+final class TitleIndex {
+    private static final int GRAM = 3;
+
+    /** Oltre questa frazione dei ToDo indicizzati conviene scorrere tutti i titoli invece di ordinare i candidati */
+    private static final int SCAN_RATIO = 8;
+
+    /** Titolo in minuscolo e ordine di ciascun ToDo indicizzato, nell'ordine della board */
+    private Map<ToDo, Entry> entries = new LinkedHashMap<>();
+
+    /** ToDo che contengono ciascun trigramma */
+    private final Map<String, Set<ToDo>> postings = new HashMap<>();
+
+    private static final Comparator<Entry> BOARD_ORDER = Comparator.comparingLong(entry -> entry.order);
+
+    private long nextOrder;
+    private long version;
+
+    private String lastQuery;
+    private long lastVersion = -1;
+    private List<Entry> lastResults;
+
+    /**
+     * Indicizza un ToDo aggiunto in coda alla board.
+     */
+    void add(ToDo todo) {
+        Entry entry = new Entry(todo, normalize(todo.getTitle()), nextOrder++);
+        entries.put(todo, entry);
+        addPostings(todo, entry.title);
+        version++;
+    }
+
+    /**
+     * Rimuove un ToDo dall'indice.
+     */
+    void remove(ToDo todo) {
+        Entry entry = entries.remove(todo);
+        if (entry != null) {
+            removePostings(todo, entry.title);
+            version++;
+        }
+    }
+
+    /**
+     * Aggiorna l'indice dopo la modifica del titolo di un ToDo.
+     */
+    void titleChanged(ToDo todo) {
+        Entry entry = entries.get(todo);
+        if (entry == null) {
+            return;
+        }
+        removePostings(todo, entry.title);
+        entry.title = normalize(todo.getTitle());
+        addPostings(todo, entry.title);
+        version++;
+    }
+
+    /**
+     * Riassegna l'ordine dei ToDo dopo un riordino della board.
+     * @param todos ToDo della board nel nuovo ordine
+     */
+    void reorder(Iterable<ToDo> todos) {
+        Map<ToDo, Entry> reordered = new LinkedHashMap<>();
+        nextOrder = 0;
+        for (ToDo todo : todos) {
+            Entry entry = entries.get(todo);
+            entry.order = nextOrder++;
+            reordered.put(todo, entry);
+        }
+        entries = reordered;
+        version++;
+    }
+
+    /**
+     * Cerca i ToDo il cui titolo contiene la query, ignorando maiuscole e minuscole.
+     * @param query Testo da cercare (non vuoto)
+     * @return ToDo corrispondenti, nell'ordine della board
+     */
+    List<ToDo> search(String query) {
+        String needle = normalize(query);
+
+        List<Entry> results;
+        if (lastQuery != null && lastVersion == version && needle.contains(lastQuery)) {
+            // La query estende la precedente: i risultati sono un sottoinsieme di quelli già trovati
+            results = filter(lastResults, needle);
+        } else {
+            Set<ToDo> candidates = needle.length() < GRAM ? null : candidates(needle);
+            if (candidates == null || candidates.size() > entries.size() / SCAN_RATIO) {
+                results = filter(entries.values(), needle);
+            } else {
+                List<Entry> candidateEntries = new ArrayList<>(candidates.size());
+                for (ToDo todo : candidates) {
+                    candidateEntries.add(entries.get(todo));
+                }
+                results = filter(candidateEntries, needle);
+                results.sort(BOARD_ORDER);
+            }
+        }
+
+        lastQuery = needle;
+        lastVersion = version;
+        lastResults = results;
+
+        List<ToDo> todos = new ArrayList<>(results.size());
+        for (Entry entry : results) {
+            todos.add(entry.todo);
+        }
+        return todos;
+    }
+
+    /**
+     * @return i ToDo presenti nella lista di trigrammi più corta tra quelli della query
+     */
+    private Set<ToDo> candidates(String needle) {
+        Set<ToDo> smallest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<ToDo> posting = postings.get(needle.substring(i, i + GRAM));
+            if (posting == null) {
+                return Set.of();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private static List<Entry> filter(Iterable<Entry> source, String needle) {
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : source) {
+            if (entry.title.contains(needle)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    private void addPostings(ToDo todo, String title) {
+        for (int i = 0; i + GRAM <= title.length(); i++) {
+            postings.computeIfAbsent(title.substring(i, i + GRAM), g -> new LinkedHashSet<>()).add(todo);
+        }
+    }
+
+    private void removePostings(ToDo todo, String title) {
+        for (int i = 0; i + GRAM <= title.length(); i++) {
+            String gram = title.substring(i, i + GRAM);
+            Set<ToDo> posting = postings.get(gram);
+            if (posting != null && posting.remove(todo) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final ToDo todo;
+        private String title;
+        private long order;
+
+        private Entry(ToDo todo, String title, long order) {
+            this.todo = todo;
+            this.title = title;
+            this.order = order;
+        }
+    }
+}
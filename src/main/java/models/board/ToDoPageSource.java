@@ -0,0 +1,25 @@
+package models.board;
+
+import models.ToDo;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sorgente delle pagine di ToDo di una board caricata in modo differito.
+ * Le pagine sono ordinate per posizione e ID; ogni pagina riparte dall'ultimo ToDo della precedente.
+ */
+@FunctionalInterface
+public interface ToDoPageSource {
+
+    /**
+     * Carica i ToDo che seguono, nell'ordine di posizione e ID, quello indicato.
+     *
+     * @param afterPosition posizione dell'ultimo ToDo già caricato (ignorata per la prima pagina)
+     * @param afterId ID dell'ultimo ToDo già caricato, o null per la prima pagina
+     * @param limit numero massimo di ToDo da caricare
+     * @return i ToDo della pagina; meno di {@code limit} se la pagina è l'ultima
+     * @throws SQLException se si verifica un errore durante il caricamento
+     */
+    List<ToDo> loadPage(int afterPosition, UUID afterId, int limit) throws SQLException;
+}
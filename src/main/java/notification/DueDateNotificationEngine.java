@@ -0,0 +1,138 @@
+package notification;
+
+import dao.NotificationDAO;
+import dao.NotificationDAOImpl;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motore delle notifiche di scadenza, indipendente dall'interfaccia grafica.
+ *
+ * <p>Ad ogni esecuzione cerca nel database, per tutti gli utenti, i ToDo non completati
+ * in scadenza entro la finestra configurata e non ancora notificati, li consegna a blocchi
+ * al {@link NotificationSink} e li registra come notificati. Le pagine sono lette per chiave
+ * (data di scadenza, ID) e i ToDo già notificati sono esclusi dalla query, così che ogni
+ * esecuzione lavori solo sulle notifiche nuove.</p>
+ *
+ * <p>Un blocco viene registrato come notificato solo dopo la consegna: se il sink fallisce,
+ * il blocco viene riproposto all'esecuzione successiva.</p>
+ */
+public class DueDateNotificationEngine {
+
+    private final NotificationDAO notificationDAO;
+    private final NotificationSink sink;
+    private final int windowDays;
+    private final int batchSize;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "due-date-notifications");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Crea il motore delle notifiche.
+     *
+     * @param notificationDAO DAO per la lettura delle scadenze e la registrazione delle notifiche
+     * @param sink destinazione delle notifiche
+     * @param windowDays giorni successivi a oggi da considerare (0 = solo oggi)
+     * @param batchSize numero di notifiche lette e consegnate per blocco
+     */
+    public DueDateNotificationEngine(NotificationDAO notificationDAO, NotificationSink sink, int windowDays, int batchSize) {
+        if (windowDays < 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("windowDays must be >= 0 and batchSize > 0");
+        }
+        this.notificationDAO = notificationDAO;
+        this.sink = sink;
+        this.windowDays = windowDays;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Esegue periodicamente il motore, a partire da subito.
+     *
+     * @param period intervallo tra la fine di un'esecuzione e l'inizio della successiva
+     */
+    public void start(Duration period) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (SQLException | IOException e) {
+                System.err.println("WARN: Due date notification run failed: " + e.getMessage());
+            } catch (RuntimeException e) {
+                // An exception escaping the task would cancel every later run
+                System.err.println("WARN: Due date notification run failed unexpectedly: " + e);
+                e.printStackTrace();
+            }
+        }, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arresta le esecuzioni periodiche.
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Invia le notifiche per i ToDo in scadenza non ancora notificati.
+     *
+     * @return numero di notifiche inviate
+     * @throws SQLException se si verifica un errore SQL
+     * @throws IOException se la consegna di un blocco non è riuscita
+     */
+    public synchronized int runOnce() throws SQLException, IOException {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(windowDays);
+
+        LocalDate afterDueDate = null;
+        UUID afterId = null;
+        int sent = 0;
+        while (true) {
+            List<DueNotification> page = notificationDAO.findDueNotNotified(from, to, afterDueDate, afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            sink.deliver(page);
+            notificationDAO.markNotified(page);
+            sent += page.size();
+            if (page.size() < batchSize) {
+                break;
+            }
+            DueNotification last = page.get(page.size() - 1);
+            afterDueDate = last.getDueDate();
+            afterId = last.getToDoId();
+        }
+
+        if (sent > 0) {
+            System.out.println("DEBUG: Sent " + sent + " due date notifications for " + from + " - " + to);
+        }
+        return sent;
+    }
+
+    /**
+     * Avvia il motore senza interfaccia grafica, con controllo ogni 15 minuti.
+     * Con l'argomento {@code mail} le notifiche vengono stampate come e-mail,
+     * altrimenti vengono scritte nel file indicato (predefinito {@code due-notifications.log}).
+     *
+     * @param args {@code mail} oppure il percorso del file di log
+     * @throws SQLException se non è possibile connettersi al database
+     * @throws InterruptedException se il thread principale viene interrotto
+     */
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        NotificationSink sink = args.length > 0 && "mail".equals(args[0])
+                ? new MailStubNotificationSink()
+                : new LogFileNotificationSink(Path.of(args.length > 0 ? args[0] : "due-notifications.log"));
+        DueDateNotificationEngine engine = new DueDateNotificationEngine(new NotificationDAOImpl(), sink, 1, 500);
+        engine.start(Duration.ofMinutes(15));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,58 @@
+package notification;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Notifica di scadenza di un ToDo, destinata al proprietario e agli utenti con cui è condiviso.
+ */
+public class DueNotification {
+    private final UUID toDoId;
+    private final String title;
+    private final LocalDate dueDate;
+    private final String ownerUsername;
+    private final List<String> recipients;
+
+    /**
+     * Crea una notifica di scadenza.
+     *
+     * @param toDoId ID del ToDo in scadenza
+     * @param title titolo del ToDo
+     * @param dueDate data di scadenza
+     * @param ownerUsername proprietario del ToDo
+     * @param recipients utenti da notificare, proprietario compreso
+     */
+    public DueNotification(UUID toDoId, String title, LocalDate dueDate, String ownerUsername, List<String> recipients) {
+        this.toDoId = toDoId;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.ownerUsername = ownerUsername;
+        this.recipients = List.copyOf(recipients);
+    }
+
+    /** @return ID del ToDo in scadenza */
+    public UUID getToDoId() {
+        return toDoId;
+    }
+
+    /** @return Titolo del ToDo */
+    public String getTitle() {
+        return title;
+    }
+
+    /** @return Data di scadenza */
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    /** @return Proprietario del ToDo */
+    public String getOwnerUsername() {
+        return ownerUsername;
+    }
+
+    /** @return Utenti da notificare, proprietario compreso */
+    public List<String> getRecipients() {
+        return recipients;
+    }
+}
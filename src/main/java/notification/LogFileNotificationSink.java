@@ -0,0 +1,40 @@
+package notification;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Scrive le notifiche di scadenza in coda a un file di log, una riga per notifica.
+ */
+public class LogFileNotificationSink implements NotificationSink {
+    private final Path logFile;
+
+    /**
+     * @param logFile file di log, creato se non esiste
+     */
+    public LogFileNotificationSink(Path logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deliver(List<DueNotification> notifications) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (DueNotification notification : notifications) {
+                writer.write(now + " ToDo '" + notification.getTitle() + "' (" + notification.getToDoId()
+                        + ") due on " + notification.getDueDate() + " -> " + String.join(", ", notification.getRecipients()));
+                writer.newLine();
+            }
+        }
+    }
+}
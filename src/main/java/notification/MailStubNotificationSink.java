@@ -0,0 +1,44 @@
+package notification;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Simula l'invio di una e-mail per ogni destinatario di una notifica, stampando il messaggio.
+ * Utile in sviluppo, finché non è disponibile un server di posta.
+ */
+public class MailStubNotificationSink implements NotificationSink {
+    private final PrintStream out;
+
+    /**
+     * Crea uno stub che stampa i messaggi sullo standard output.
+     */
+    public MailStubNotificationSink() {
+        this(System.out);
+    }
+
+    /**
+     * @param out stream su cui stampare i messaggi
+     */
+    public MailStubNotificationSink(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deliver(List<DueNotification> notifications) {
+        for (DueNotification notification : notifications) {
+            for (String recipient : notification.getRecipients()) {
+                out.println("To: " + recipient);
+                out.println("Subject: ToDo '" + notification.getTitle() + "' due on " + notification.getDueDate());
+                out.println();
+                out.println("The ToDo '" + notification.getTitle() + "' owned by " + notification.getOwnerUsername()
+                        + " is due on " + notification.getDueDate() + ".");
+                out.println();
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,19 @@
+package notification;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destinazione delle notifiche di scadenza prodotte dal {@link DueDateNotificationEngine}.
+ */
+public interface NotificationSink {
+
+    /**
+     * Consegna un blocco di notifiche. Se il metodo lancia un'eccezione nessuna notifica
+     * del blocco viene registrata come inviata, e il blocco verrà riproposto all'esecuzione successiva.
+     *
+     * @param notifications le notifiche da consegnare
+     * @throws IOException se la consegna non è riuscita
+     */
+    void deliver(List<DueNotification> notifications) throws IOException;
+}
@@ -0,0 +1,233 @@
+package utils;
+
+import models.ToDo;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pianificatore delle scadenze dei ToDo guidato dagli eventi.
+ *
+ * <p>Le scadenze future sono mantenute in una coda con priorità ordinata per data: il thread
+ * del pianificatore si risveglia solo quando il primo ToDo della coda diventa in scadenza,
+ * invece di controllare ogni notte tutti i ToDo. Aggiunte, modifiche e rimozioni costano
+ * O(log n); le voci superate da una modifica restano nella coda e vengono scartate quando
+ * raggiungono la testa.</p>
+ *
+ * <p>L'inizio del giorno di scadenza è calcolato con {@code java.time} nel fuso orario
+ * di sistema corrente, così da gestire correttamente i cambi di ora legale. L'attesa non supera
+ * mai {@link #MAX_SLEEP}, così che anche un cambio del fuso orario venga recepito in breve tempo.</p>
+ *
+ * <p>L'azione di scadenza viene eseguita sul thread del pianificatore, una sola volta per ogni
+ * data di scadenza impostata.</p>
+ */
+public class DueDateScheduler {
+
+    /** Attesa massima tra due risvegli, anche se la prossima scadenza è più lontana */
+    private static final Duration MAX_SLEEP = Duration.ofHours(1);
+
+    private static final Comparator<Entry> BY_DUE_DATE = Comparator.comparing((Entry entry) -> entry.dueDate).thenComparingLong(entry -> entry.sequence);
+
+    /** Azione eseguita quando un ToDo diventa in scadenza */
+    private final Consumer<ToDo> onDue;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "due-date-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Scadenze pianificate; può contenere voci superate da una modifica successiva */
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(BY_DUE_DATE);
+
+    /** Voce valida per ciascun ToDo pianificato */
+    private final Map<ToDo, Entry> scheduled = new HashMap<>();
+
+    /** ToDo seguiti con {@link #track(ToDo)}, di cui vengono osservate le modifiche della scadenza */
+    private final Set<ToDo> tracked = new HashSet<>();
+
+    /** Ripianifica i ToDo seguiti quando cambia la loro data di scadenza */
+    private final ToDo.ChangeListener dueDateListener = (todo, field, oldValue) -> {
+        if (field == ToDo.Field.DUE_DATE) {
+            schedule(todo);
+        }
+    };
+
+    private long nextSequence;
+    private ScheduledFuture<?> wakeUp;
+    private Instant wakeUpAt;
+
+    /**
+     * Crea un pianificatore che esegue l'azione indicata quando un ToDo diventa in scadenza.
+     *
+     * @param onDue azione da eseguire per ogni ToDo in scadenza
+     */
+    public DueDateScheduler(Consumer<ToDo> onDue) {
+        this.onDue = onDue;
+    }
+
+    /**
+     * Pianifica un ToDo e ne segue le modifiche della data di scadenza, finché non viene
+     * chiamato {@link #untrack(ToDo)}. Un ToDo già seguito viene ignorato: le sue modifiche
+     * sono già ripianificate. Va chiamato dal thread che modifica il ToDo.
+     *
+     * @param todo il ToDo da seguire
+     */
+    public void track(ToDo todo) {
+        synchronized (this) {
+            if (!tracked.add(todo)) {
+                return;
+            }
+        }
+        todo.addChangeListener(dueDateListener);
+        schedule(todo);
+    }
+
+    /**
+     * Smette di seguire un ToDo, ad esempio perché è stato eliminato, e ne annulla la scadenza.
+     * Va chiamato dal thread che modifica il ToDo.
+     *
+     * @param todo il ToDo da non seguire più
+     */
+    public void untrack(ToDo todo) {
+        synchronized (this) {
+            tracked.remove(todo);
+        }
+        todo.removeChangeListener(dueDateListener);
+        cancel(todo);
+    }
+
+    /**
+     * Pianifica (o ripianifica) la scadenza di un ToDo in base alla sua data di scadenza attuale.
+     * I ToDo senza data o con una data già passata non vengono pianificati;
+     * quelli in scadenza oggi vengono notificati subito.
+     *
+     * @param todo il ToDo da pianificare
+     */
+    public synchronized void schedule(ToDo todo) {
+        scheduled.remove(todo);
+        LocalDate dueDate = todo.getDueDate();
+        if (dueDate == null || dueDate.isBefore(LocalDate.now(ZoneId.systemDefault()))) {
+            return;
+        }
+        Entry entry = new Entry(todo, dueDate, nextSequence++);
+        scheduled.put(todo, entry);
+        queue.add(entry);
+        compactIfNeeded();
+        if (queue.peek() == entry) {
+            // Solo una nuova scadenza in testa può anticipare il prossimo risveglio
+            planWakeUp();
+        }
+    }
+
+    /**
+     * Annulla la scadenza pianificata di un ToDo.
+     *
+     * @param todo il ToDo da rimuovere dalla pianificazione
+     */
+    public synchronized void cancel(ToDo todo) {
+        scheduled.remove(todo);
+    }
+
+    /**
+     * Arresta il thread del pianificatore. Le scadenze pianificate non vengono più notificate.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Notifica i ToDo giunti a scadenza e pianifica il risveglio successivo.
+     */
+    private void wakeUp() {
+        List<ToDo> due = new ArrayList<>();
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = null;
+            LocalDate today = LocalDate.now(ZoneId.systemDefault());
+            while (!queue.isEmpty() && !queue.peek().dueDate.isAfter(today)) {
+                Entry entry = queue.poll();
+                if (scheduled.get(entry.todo) == entry) {
+                    scheduled.remove(entry.todo);
+                    due.add(entry.todo);
+                }
+            }
+            planWakeUp();
+        }
+
+        for (ToDo todo : due) {
+            try {
+                onDue.accept(todo);
+            } catch (RuntimeException e) {
+                System.err.println("WARN: Error notifying due ToDo '" + todo.getTitle() + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pianifica il risveglio per la scadenza in testa alla coda, se anticipa quello già previsto.
+     * Deve essere chiamato tenendo il lock del pianificatore.
+     */
+    private void planWakeUp() {
+        discardStaleHead();
+        if (queue.isEmpty() || executor.isShutdown()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant dueAt = queue.peek().dueDate.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Instant next = dueAt.isAfter(now.plus(MAX_SLEEP)) ? now.plus(MAX_SLEEP) : dueAt;
+        if (wakeUp != null) {
+            if (!next.isBefore(wakeUpAt)) {
+                return;
+            }
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = next;
+        wakeUp = executor.schedule(this::wakeUp, Math.max(0, Duration.between(now, next).toMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void discardStaleHead() {
+        while (!queue.isEmpty() && scheduled.get(queue.peek().todo) != queue.peek()) {
+            queue.poll();
+        }
+    }
+
+    /**
+     * Ricostruisce la coda quando le voci superate sono più numerose di quelle valide.
+     */
+    private void compactIfNeeded() {
+        if (queue.size() > 2 * scheduled.size() + 64) {
+            queue.clear();
+            queue.addAll(scheduled.values());
+        }
+    }
+
+    /**
+     * Scadenza pianificata di un ToDo.
+     */
+    private static final class Entry {
+        private final ToDo todo;
+        private final LocalDate dueDate;
+        private final long sequence;
+
+        private Entry(ToDo todo, LocalDate dueDate, long sequence) {
+            this.todo = todo;
+            this.dueDate = dueDate;
+            this.sequence = sequence;
+        }
+    }
+}
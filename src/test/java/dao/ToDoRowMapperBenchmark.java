@@ -0,0 +1,121 @@
+package dao;
+
+import db.DatabaseConnection;
+import models.ToDo;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Microbenchmark del costo per riga della costruzione dei ToDo: confronta la lettura delle colonne
+ * per nome, come faceva il DAO, con {@link ToDoRowMapper}, che le legge per indice.
+ *
+ * <p>Le righe vengono generate dal database una sola volta e lette in un result set scrollabile
+ * già in memoria, così che i tempi misurati comprendano solo la lettura delle colonne e la
+ * costruzione dei ToDo, non il trasferimento dei dati. Richiede il database configurato in
+ * {@link DatabaseConnection}; non modifica alcuna tabella.</p>
+ *
+ * <p>Uso: {@code ToDoRowMapperBenchmark [righe] [ripetizioni]} (predefiniti 100000 e 15).</p>
+ */
+public class ToDoRowMapperBenchmark {
+
+    private static final String SQL = "SELECT gen_random_uuid() AS id, 'ToDo ' || g AS title, " +
+            "CASE WHEN g % 3 = 0 THEN 'Complete' ELSE 'Incomplete' END AS status, " +
+            "CASE WHEN g % 2 = 0 THEN current_date + g % 30 END AS due_date, current_date AS created_date, " +
+            "g * 1024 AS position, 'benchmark' AS owner_username, 'https://example.com/' || g AS url, " +
+            "NULL::varchar AS image, '#FFFFFF' AS color, g % 3 + 1 AS board_id " +
+            "FROM generate_series(1, ?) g";
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static long blackhole;
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(SQL, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setInt(1, rows);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long[] byLabel = new long[rounds];
+                long[] byIndex = new long[rounds];
+                for (int round = -WARMUP_ROUNDS; round < rounds; round++) {
+                    // Alternate the order of the two readers so neither always runs on a warmer heap
+                    long labelTime;
+                    long indexTime;
+                    if ((round & 1) == 0) {
+                        labelTime = timeByLabel(rs);
+                        indexTime = timeByIndex(rs);
+                    } else {
+                        indexTime = timeByIndex(rs);
+                        labelTime = timeByLabel(rs);
+                    }
+                    if (round >= 0) {
+                        byLabel[round] = labelTime;
+                        byIndex[round] = indexTime;
+                    }
+                }
+
+                double labelNanos = median(byLabel) / (double) rows;
+                double indexNanos = median(byIndex) / (double) rows;
+                System.out.printf("Rows: %d, rounds: %d (after %d warmup rounds), median per row:%n", rows, rounds, WARMUP_ROUNDS);
+                System.out.printf("  by column label (findColumn per field): %8.1f ns%n", labelNanos);
+                System.out.printf("  ToDoRowMapper (indexes bound once):     %8.1f ns%n", indexNanos);
+                System.out.printf("  reduction: %.1f%%  (checksum %d)%n", 100 * (1 - indexNanos / labelNanos), blackhole);
+            }
+        } finally {
+            DatabaseConnection.getPool().close();
+        }
+    }
+
+    private static long timeByLabel(ResultSet rs) throws SQLException {
+        rs.beforeFirst();
+        long start = System.nanoTime();
+        while (rs.next()) {
+            ToDo toDo = readToDoByLabel(rs);
+            blackhole += toDo.getPosition() + rs.getInt("board_id");
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeByIndex(ResultSet rs) throws SQLException {
+        rs.beforeFirst();
+        long start = System.nanoTime();
+        ToDoRowMapper mapper = new ToDoRowMapper("board_id");
+        while (rs.next()) {
+            ToDo toDo = mapper.map(rs);
+            blackhole += toDo.getPosition() + rs.getInt(mapper.getExtraColumnIndex(0));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * La lettura per nome di colonna usata dal DAO prima di {@link ToDoRowMapper}.
+     */
+    private static ToDo readToDoByLabel(ResultSet rs) throws SQLException {
+        ToDo toDo = new ToDo(
+                (UUID) rs.getObject("id"),
+                rs.getString("title"),
+                rs.getString("owner_username")
+        );
+        toDo.setStatus(rs.getString("status"));
+        java.sql.Date sqlDueDate = rs.getDate("due_date");
+        toDo.setDueDate(sqlDueDate != null ? sqlDueDate.toLocalDate() : null);
+        toDo.setCreatedDate(rs.getDate("created_date").toLocalDate());
+        toDo.setPosition(rs.getInt("position"));
+        toDo.setUrl(rs.getString("url"));
+        toDo.setImage(rs.getString("image"));
+        toDo.setColor(rs.getString("color"));
+        return toDo;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
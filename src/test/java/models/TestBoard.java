@@ -8,6 +8,8 @@ import models.board.BoardName;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -49,7 +51,7 @@ public class TestBoard {
         assertEquals(1, board.getTodoList().size());
         assertEquals("Test ToDo", todo.getTitle());
         assertEquals(owner, todo.getOwner());
-        assertEquals(1, todo.getPosition());
+        assertEquals(Board.POSITION_GAP, todo.getPosition());
     }
 
     @Test
@@ -66,8 +68,8 @@ public class TestBoard {
         ToDo todo2 = board.addTodo("Second ToDo");
 
         assertEquals(2, board.getTodoList().size());
-        assertEquals(1, todo1.getPosition());
-        assertEquals(2, todo2.getPosition());
+        assertEquals(Board.POSITION_GAP, todo1.getPosition());
+        assertEquals(2 * Board.POSITION_GAP, todo2.getPosition());
     }
 
     @Test
@@ -87,9 +89,13 @@ public class TestBoard {
 
         assertEquals(1, todoList.size());
 
-        // Verify that modifying the returned list doesn't affect the board's list
-        todoList.clear();
-        assertEquals(1, board.getTodoList().size());
+        // The returned list is a read-only snapshot, reused until the board changes
+        assertThrows(UnsupportedOperationException.class, todoList::clear);
+        assertSame(todoList, board.getTodoList());
+
+        board.addTodo("Second ToDo");
+        assertEquals(1, todoList.size());
+        assertEquals(2, board.getTodoList().size());
     }
 
     @Test
@@ -158,44 +164,148 @@ public class TestBoard {
         assertEquals(todo1, todoList.get(0));
         assertEquals(todo3, todoList.get(1));
 
-        assertEquals(1, todo1.getPosition());
-        assertEquals(2, todo3.getPosition());
+        // Removing a ToDo does not renumber the others
+        assertEquals(Board.POSITION_GAP, todo1.getPosition());
+        assertEquals(3 * Board.POSITION_GAP, todo3.getPosition());
+    }
+
+    @Test
+    public void testMoveTodoChangesOnlyMovedPosition() {
+        ToDo todo1 = board.addTodo("First ToDo");
+        ToDo todo2 = board.addTodo("Second ToDo");
+        ToDo todo3 = board.addTodo("Third ToDo");
+
+        assertTrue(board.moveTodo(todo3, 0));
+
+        assertEquals(List.of(todo3, todo1, todo2), board.getTodoList());
+        assertEquals(Board.POSITION_GAP / 2, todo3.getPosition());
+        assertEquals(Board.POSITION_GAP, todo1.getPosition());
+        assertEquals(2 * Board.POSITION_GAP, todo2.getPosition());
+    }
+
+    @Test
+    public void testMoveTodoRebalancesWhenNoGapIsLeft() {
+        ToDo todo1 = board.addTodo("First ToDo");
+        ToDo todo2 = board.addTodo("Second ToDo");
+        todo1.setPosition(1);
+        todo2.setPosition(2);
+        ToDo todo3 = board.addTodo("Third ToDo");
+
+        assertTrue(board.moveTodo(todo3, 1));
+
+        assertEquals(List.of(todo1, todo3, todo2), board.getTodoList());
+        assertEquals(Board.POSITION_GAP, todo1.getPosition());
+        assertEquals(2 * Board.POSITION_GAP, todo3.getPosition());
+        assertEquals(3 * Board.POSITION_GAP, todo2.getPosition());
+    }
+
+    @Test
+    public void testLoadPagesFromPageSource() throws Exception {
+        List<ToDo> stored = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ToDo todo = new ToDo("ToDo " + i, owner);
+            todo.setPosition(i * Board.POSITION_GAP);
+            stored.add(todo);
+        }
+        board.setPageSource((afterPosition, afterId, limit) -> {
+            int from = afterId == null ? 0 : stored.indexOf(board.findById(afterId).orElseThrow()) + 1;
+            return stored.subList(from, Math.min(stored.size(), from + limit));
+        }, 2);
+
+        assertTrue(board.hasMorePages());
+        assertEquals(stored.subList(0, 2), board.loadNextPage());
+        assertEquals(2, board.getTodoList().size());
+
+        // The last loaded slot cannot be computed until the next page is known
+        assertFalse(board.moveTodo(stored.get(0), 1));
+
+        board.loadAllPages();
+        assertFalse(board.hasMorePages());
+        assertEquals(stored, board.getTodoList());
+        assertTrue(board.moveTodo(stored.get(0), 4));
+    }
+
+    @Test
+    public void testFindTodoAfterRename() {
+        ToDo todo = board.addTodo("Old Title");
+
+        todo.setTitle("New Title");
+
+        assertFalse(board.findByTitle("Old Title").isPresent());
+        assertEquals(todo, board.findByTitle("New Title").orElseThrow());
+        assertEquals(todo, board.findByTitleAndOwner("New Title", owner).orElseThrow());
+        assertEquals(todo, board.findById(todo.getId()).orElseThrow());
+        assertNull(board.addTodo("New Title"));
+    }
+
+    @Test
+    public void testSearchByTitle() {
+        ToDo first = board.addTodo("Comprare il latte");
+        ToDo second = board.addTodo("Pagare le bollette");
+        ToDo third = board.addTodo("Comprare il pane");
+
+        assertEquals(List.of(first, third), board.searchByTitle("compra"));
+        assertEquals(List.of(first), board.searchByTitle("comprare il l"));
+        assertEquals(List.of(first, second, third), board.searchByTitle(""));
+
+        second.setTitle("Comprare le bollette");
+        assertEquals(List.of(first, second, third), board.searchByTitle("COMPRARE"));
+
+        board.removeToDo(first);
+        assertEquals(List.of(second, third), board.searchByTitle("compra"));
+        assertTrue(board.searchByTitle("latte").isEmpty());
     }
 
     //TODO TEST SHARED BOARDS ON DELETE
 
-//    @Test
-//    public void testGetTodosDueOn() {
-//        ToDo todo1 = board.addTodo("Todo Today");
-//        ToDo todo2 = board.addTodo("Todo Tomorrow");
-//        ToDo todo3 = board.addTodo("Todo No Date");
-//
-//        Calendar cal = Calendar.getInstance();
-//        Date today = cal.getTime();
-//
-//        todo1.setDueDate(today);
-//
-//        cal.add(Calendar.DAY_OF_MONTH, 1);
-//        Date tomorrow = cal.getTime();
-//        todo2.setDueDate(tomorrow);
-//
-//        List<ToDo> todosToday = board.getTodosDueOn(today);
-//        assertEquals(1, todosToday.size());
-//        assertEquals(todo1, todosToday.get(0));
-//
-//        List<ToDo> todosTomorrow = board.getTodosDueOn(tomorrow);
-//        assertEquals(1, todosTomorrow.size());
-//        assertEquals(todo2, todosTomorrow.get(0));
-//    }
-//
-//    @Test
-//    public void testGetTodosDueToday() {
-//        // Create a todo due today
-//        ToDo todo = board.addTodo("Todo Today");
-//        todo.setDueDate(new Date());
-//
-//        List<ToDo> todosToday = board.getTodosDueToday();
-//        assertEquals(1, todosToday.size());
-//        assertEquals(todo, todosToday.get(0));
-//    }
+    @Test
+    public void testGetTodosDueOn() {
+        ToDo todo1 = board.addTodo("Todo Today");
+        ToDo todo2 = board.addTodo("Todo Tomorrow");
+        board.addTodo("Todo No Date");
+
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        todo1.setDueDate(today);
+        todo2.setDueDate(tomorrow);
+
+        assertEquals(List.of(todo1), board.getTodosDueOn(today));
+        assertEquals(List.of(todo2), board.getTodosDueOn(tomorrow));
+
+        todo2.setDueDate(today);
+        assertEquals(List.of(todo1, todo2), board.getTodosDueOn(today));
+        assertTrue(board.getTodosDueOn(tomorrow).isEmpty());
+    }
+
+    @Test
+    public void testGetTodosDueToday() {
+        ToDo todo = board.addTodo("Todo Today");
+        todo.setDueDate(LocalDate.now());
+
+        List<ToDo> todosToday = board.getTodosDueToday();
+        assertEquals(1, todosToday.size());
+        assertEquals(todo, todosToday.get(0));
+    }
+
+    @Test
+    public void testGetTodosDueBetweenAndOverdue() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        ToDo late = board.addTodo("Late");
+        ToDo done = board.addTodo("Done");
+        ToDo next = board.addTodo("Next week");
+        late.setDueDate(today.minusDays(2));
+        done.setDueDate(today.minusDays(1));
+        done.setStatus("Complete");
+        next.setDueDate(today.plusDays(7));
+
+        assertEquals(List.of(late, done), board.getTodosDueBetween(today.minusDays(5), today));
+        assertEquals(List.of(late), board.getOverdueTodos(today));
+
+        done.setStatus("Incomplete");
+        assertEquals(List.of(late, done), board.getOverdueTodos(today));
+
+        board.removeToDo(late);
+        assertEquals(List.of(done), board.getOverdueTodos(today));
+        assertEquals(List.of(done, next), board.getTodosDueBetween(today.minusDays(5), today.plusDays(7)));
+    }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -211,4 +212,57 @@ public class TestToDo {
         assertEquals(1, todo.getUsers().size());
         assertFalse(todo.getUsers().contains(user2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testActivityChangesSinceLastSave() {
+        todo.addActivity("keep");
+        todo.addActivity("toggle");
+        todo.addActivity("remove");
+        todo.markPersisted();
+        assertTrue(todo.getActivityChanges().isEmpty());
+
+        todo.getActivityList().put("toggle", true);
+        todo.deleteActivity("remove");
+        todo.addActivity("new");
+
+        ActivityChanges changes = todo.getActivityChanges();
+        assertEquals(Map.of("new", false), changes.getAdded());
+        assertEquals(Map.of("toggle", true), changes.getToggled());
+        assertEquals(Set.of("remove"), changes.getRemoved());
+    }
+
+    @Test
+    public void testDirtyFieldsTrackOnlyRealChanges() {
+        todo.markPersisted();
+        todo.setTitle(todo.getTitle());
+        assertTrue(todo.getDirtyFields().isEmpty());
+        assertFalse(todo.hasUnsavedChanges());
+
+        todo.setColor("red");
+        todo.setPosition(5);
+        assertEquals(Set.of(ToDo.Field.COLOR, ToDo.Field.POSITION), todo.getDirtyFields());
+
+        todo.markPersisted();
+        assertFalse(todo.hasUnsavedChanges());
+    }
+
+    @Test
+    public void testDetailsLoadedOnFirstAccess() {
+        int[] loads = {0};
+        todo.markPersisted();
+        todo.setDetailsSource(t -> {
+            loads[0]++;
+            t.applyDetails("Loaded description", Map.of("step", true), Set.of(new User("guest", "password")));
+        });
+        assertFalse(todo.isDetailsLoaded());
+
+        assertEquals("Loaded description", todo.getDescription());
+        assertEquals(Map.of("step", true), todo.getActivityList());
+        assertEquals(1, todo.getUsers().size());
+        assertEquals(1, loads[0]);
+
+        // Loaded details are already persisted
+        assertTrue(todo.isDetailsLoaded());
+        assertFalse(todo.hasUnsavedChanges());
+    }
+}
@@ -0,0 +1,199 @@
+package notification;
+
+import dao.NotificationDAO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDueDateNotificationEngine {
+
+    private FakeNotificationDAO notificationDAO;
+    private FakeSink sink;
+    private LocalDate today;
+
+    @BeforeEach
+    public void setUp() {
+        notificationDAO = new FakeNotificationDAO();
+        sink = new FakeSink();
+        today = LocalDate.now();
+    }
+
+    @Test
+    public void testRunOnceReadsEveryPageByKeyset() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            notificationDAO.add(today.plusDays(i % 2));
+        }
+        notificationDAO.add(today.plusDays(3));
+        DueDateNotificationEngine engine = new DueDateNotificationEngine(notificationDAO, sink, 1, 2);
+
+        assertEquals(5, engine.runOnce());
+
+        assertEquals(List.of(2, 2, 1), sink.deliveredSizes());
+        assertEquals(notificationDAO.sortedIds(today, today.plusDays(1)), sink.deliveredIds());
+        // Each page resumes after the last notification of the previous one
+        assertEquals(3, notificationDAO.queries.size());
+        assertNull(notificationDAO.queries.get(0).afterId);
+        for (int page = 1; page < notificationDAO.queries.size(); page++) {
+            DueNotification last = sink.delivered.get(page - 1).get(1);
+            assertEquals(last.getDueDate(), notificationDAO.queries.get(page).afterDueDate);
+            assertEquals(last.getToDoId(), notificationDAO.queries.get(page).afterId);
+        }
+        assertEquals(Set.copyOf(sink.deliveredIds()), notificationDAO.notified);
+
+        // Notified ToDos are not delivered again
+        assertEquals(0, engine.runOnce());
+        assertEquals(3, sink.delivered.size());
+    }
+
+    @Test
+    public void testRunOnceStopsOnEmptyPageAfterFullPages() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            notificationDAO.add(today);
+        }
+        DueDateNotificationEngine engine = new DueDateNotificationEngine(notificationDAO, sink, 0, 2);
+
+        assertEquals(4, engine.runOnce());
+
+        assertEquals(List.of(2, 2), sink.deliveredSizes());
+        assertEquals(3, notificationDAO.queries.size());
+    }
+
+    @Test
+    public void testFailedDeliveryIsNotMarkedAndIsRetried() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            notificationDAO.add(today);
+        }
+        DueDateNotificationEngine engine = new DueDateNotificationEngine(notificationDAO, sink, 0, 2);
+
+        sink.failuresLeft = 1;
+        assertThrows(IOException.class, engine::runOnce);
+        assertTrue(notificationDAO.notified.isEmpty());
+
+        assertEquals(3, engine.runOnce());
+        assertEquals(notificationDAO.sortedIds(today, today), sink.deliveredIds());
+        assertEquals(3, notificationDAO.notified.size());
+    }
+
+    @Test
+    public void testFailureOnLaterPageKeepsEarlierPagesMarked() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            notificationDAO.add(today);
+        }
+        DueDateNotificationEngine engine = new DueDateNotificationEngine(notificationDAO, sink, 0, 2);
+
+        sink.failAfter = 1;
+        assertThrows(IOException.class, engine::runOnce);
+        assertEquals(Set.copyOf(sink.deliveredIds()), notificationDAO.notified);
+        assertEquals(2, notificationDAO.notified.size());
+
+        sink.failAfter = -1;
+        assertEquals(3, engine.runOnce());
+        assertEquals(List.of(2, 2, 1), sink.deliveredSizes());
+        assertEquals(notificationDAO.sortedIds(today, today), sink.deliveredIds());
+    }
+
+    /**
+     * DAO in memoria che riproduce la paginazione per chiave (data di scadenza, ID) di quello reale.
+     */
+    private static class FakeNotificationDAO implements NotificationDAO {
+
+        private static final Comparator<DueNotification> ORDER =
+                Comparator.comparing(DueNotification::getDueDate).thenComparing(DueNotification::getToDoId);
+
+        private final List<DueNotification> due = new ArrayList<>();
+        private final Set<UUID> notified = new HashSet<>();
+        private final List<Query> queries = new ArrayList<>();
+
+        private void add(LocalDate dueDate) {
+            UUID id = UUID.randomUUID();
+            due.add(new DueNotification(id, "ToDo " + due.size(), dueDate, "owner", List.of("owner")));
+        }
+
+        private List<UUID> sortedIds(LocalDate from, LocalDate to) {
+            return due.stream()
+                    .filter(n -> !n.getDueDate().isBefore(from) && !n.getDueDate().isAfter(to))
+                    .sorted(ORDER)
+                    .map(DueNotification::getToDoId)
+                    .toList();
+        }
+
+        @Override
+        public List<DueNotification> findDueNotNotified(LocalDate from, LocalDate to, LocalDate afterDueDate, UUID afterId, int limit) {
+            queries.add(new Query(afterDueDate, afterId));
+            DueNotification after = afterId != null ? new DueNotification(afterId, "", afterDueDate, "", List.of()) : null;
+            return due.stream()
+                    .filter(n -> !n.getDueDate().isBefore(from) && !n.getDueDate().isAfter(to))
+                    .filter(n -> !notified.contains(n.getToDoId()))
+                    .filter(n -> after == null || ORDER.compare(n, after) > 0)
+                    .sorted(ORDER)
+                    .limit(limit)
+                    .toList();
+        }
+
+        @Override
+        public void markNotified(Collection<DueNotification> notifications) {
+            for (DueNotification notification : notifications) {
+                notified.add(notification.getToDoId());
+            }
+        }
+    }
+
+    /**
+     * Cursore ricevuto dal DAO per una pagina.
+     */
+    private static class Query {
+        private final LocalDate afterDueDate;
+        private final UUID afterId;
+
+        private Query(LocalDate afterDueDate, UUID afterId) {
+            this.afterDueDate = afterDueDate;
+            this.afterId = afterId;
+        }
+    }
+
+    /**
+     * Sink che registra i blocchi consegnati e può simulare consegne fallite.
+     */
+    private static class FakeSink implements NotificationSink {
+
+        private final List<List<DueNotification>> delivered = new ArrayList<>();
+
+        /** Numero di consegne da far fallire prima di accettarne altre */
+        private int failuresLeft;
+
+        /** Numero di blocchi consegnati dopo il quale ogni consegna fallisce, -1 per nessun limite */
+        private int failAfter = -1;
+
+        @Override
+        public void deliver(List<DueNotification> notifications) throws IOException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("delivery failed");
+            }
+            if (failAfter >= 0 && delivered.size() >= failAfter) {
+                throw new IOException("delivery failed");
+            }
+            delivered.add(List.copyOf(notifications));
+        }
+
+        private List<Integer> deliveredSizes() {
+            return delivered.stream().map(List::size).toList();
+        }
+
+        private List<UUID> deliveredIds() {
+            return delivered.stream().flatMap(List::stream).map(DueNotification::getToDoId).toList();
+        }
+    }
+}